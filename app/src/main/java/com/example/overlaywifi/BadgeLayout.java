@@ -0,0 +1,30 @@
+package com.example.overlaywifi;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.widget.FrameLayout;
+
+/**
+ * Root of the overlay badge. Reports when its window is shown or hidden
+ * (keyguard, another window taking over) so the service can pause its refresh tick.
+ */
+public class BadgeLayout extends FrameLayout {
+
+    public interface OnWindowVisibilityListener {
+        void onWindowVisibilityChanged(boolean visible);
+    }
+
+    private OnWindowVisibilityListener listener;
+
+    public BadgeLayout(Context ctx, AttributeSet attrs) {
+        super(ctx, attrs);
+    }
+
+    public void setOnWindowVisibilityListener(OnWindowVisibilityListener l) { listener = l; }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (listener != null) listener.onWindowVisibilityChanged(visibility == VISIBLE);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.overlaywifi;
+
+import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Rows of the raw event log, read lazily from {@link EventPages}.
+ *
+ * Pages are loaded on a single background thread and kept in a small LRU, so
+ * memory does not depend on the size of the log. A row is formatted only when
+ * bound, into the holder's own char buffer; rows of a page still loading show
+ * a placeholder and are rebound when it arrives. An optional SSID
+ * {@link EventPages.Filter} maps rows to matching records only.
+ */
+public class EventLogAdapter extends RecyclerView.Adapter<EventLogAdapter.Row> {
+
+    /** Receives the result of a background job on the main thread; null if it failed. */
+    public interface Callback<T> {
+        void done(T result);
+    }
+
+    private interface Job<T> {
+        T run() throws Exception;
+    }
+
+    private static final int CACHED_PAGES = 16;
+
+    private final EventPages      pages;
+    private final SsidDictionary  ssids;
+    private final ClockFormat     clock   = new ClockFormat(TimeZone.getDefault());
+    private final StringBuilder   sb      = new StringBuilder(64);
+    private final ExecutorService io      = Executors.newSingleThreadExecutor();
+    private final Handler         main    = new Handler(Looper.getMainLooper());
+    private final LruCache<Integer, EventPages.Page> cache = new LruCache<>(CACHED_PAGES);
+    private final Set<Integer>    loading = new HashSet<>();
+    private EventPages.Filter     filter;
+    private boolean               closed;
+
+    public EventLogAdapter(EventPages pages, SsidDictionary ssids) {
+        this.pages = pages;
+        this.ssids = ssids;
+    }
+
+    static final class Row extends RecyclerView.ViewHolder {
+        final TextView text;
+        final char[]   chars = new char[96];
+
+        Row(TextView v) {
+            super(v);
+            text = v;
+        }
+    }
+
+    /* ---------- adapter ---------- */
+
+    @Override public int getItemCount() { return filter != null ? filter.size() : pages.size(); }
+
+    @NonNull @Override
+    public Row onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        TextView tv = new TextView(parent.getContext());
+        tv.setTypeface(Typeface.MONOSPACE);
+        tv.setPadding(16, 4, 16, 4);
+        tv.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        return new Row(tv);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull Row row, int position) {
+        int p = filter != null ? filter.page(position) : position / EventPages.PAGE;
+        EventPages.Page page = cache.get(p);
+        sb.setLength(0);
+        if (page == null) {
+            load(p);
+            sb.append('…');
+        } else {
+            int k = filter != null ? nthMatch(page, filter.rank(position)) : position % EventPages.PAGE;
+            if (k < 0 || k >= page.size || !page.valid[k]) {
+                sb.append("(damaged record)");
+            } else {
+                clock.appendDateTime(sb, page.time[k])
+                     .append(page.connected[k] ? " | ON  | " : " | OFF | ")
+                     .append(page.connected[k] ? ssids.name(page.ssid[k]) : SsidDictionary.NONE_NAME);
+                if (page.flaps[k] > 0) sb.append(" | ").append(page.flaps[k]).append(" flaps");
+            }
+        }
+        int len = Math.min(sb.length(), row.chars.length);
+        sb.getChars(0, len, row.chars, 0);
+        row.text.setText(row.chars, 0, len);
+    }
+
+    /* ---------- filtering & seeking ---------- */
+
+    /** Show only records of {@code ssidId} (NONE = disconnected), or all when null is passed. */
+    public void setFilter(Integer ssidId, Runnable done) {
+        if (ssidId == null) {
+            filter = null;
+            notifyDataSetChanged();
+            done.run();
+            return;
+        }
+        submit(() -> pages.filter(ssidId), f -> {
+            if (f != null) {
+                filter = f;
+                notifyDataSetChanged();
+            }
+            done.run();
+        });
+    }
+
+    /** Find the row of the first record at or after {@code t} under the current filter. */
+    public void rowAt(long t, Callback<Integer> cb) {
+        EventPages.Filter f = filter;
+        submit(() -> {
+            int index = pages.indexOf(t);
+            if (f == null) return Math.min(index, pages.size() - 1);    // -1 when empty
+            EventPages.Page page = pages.read(index / EventPages.PAGE, new EventPages.Page());
+            return Math.min(f.rowAt(index, page), f.size() - 1);
+        }, cb);
+    }
+
+    /** Stop the loader thread and release the files. */
+    public void close() {
+        closed = true;
+        io.execute(pages::close);
+        io.shutdown();
+    }
+
+    /* ---------- helpers ---------- */
+
+    private int nthMatch(EventPages.Page page, int n) {
+        for (int k = 0; k < page.size; k++) if (filter.matches(page, k) && n-- == 0) return k;
+        return -1;
+    }
+
+    private void load(int p) {
+        if (!loading.add(p)) return;
+        submit(() -> pages.read(p, new EventPages.Page()), page -> {
+            loading.remove(p);
+            if (page == null) return;
+            cache.put(p, page);
+            if (filter != null) notifyDataSetChanged();
+            else notifyItemRangeChanged(p * EventPages.PAGE, Math.min(EventPages.PAGE, getItemCount() - p * EventPages.PAGE));
+        });
+    }
+
+    private <T> void submit(Job<T> job, Callback<T> cb) {
+        if (closed) return;
+        io.execute(() -> {
+            T result;
+            try { result = job.run(); } catch (Exception e) { result = null; }
+            T r = result;
+            main.post(() -> { if (!closed) cb.done(r); });
+        });
+    }
+}
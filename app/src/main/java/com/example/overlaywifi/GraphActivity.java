@@ -1,29 +1,34 @@
 package com.example.overlaywifi;
 
-import android.app.AlertDialog; import android.graphics.Typeface; import android.os.Bundle; import android.os.Handler; import android.os.Looper; import android.view.MotionEvent; import android.view.ScaleGestureDetector; import android.view.View; import android.widget.Button; import android.widget.HorizontalScrollView; import android.widget.ScrollView; import android.widget.TextView;
+import android.app.AlertDialog; import android.app.DatePickerDialog; import android.app.TimePickerDialog; import android.content.DialogInterface; import android.net.Uri; import android.os.Bundle; import android.os.Handler; import android.os.Looper; import android.provider.DocumentsContract; import android.view.Choreographer; import android.view.MotionEvent; import android.view.View; import android.widget.AdapterView; import android.widget.ArrayAdapter; import android.widget.Button; import android.widget.ProgressBar; import android.widget.Spinner; import android.widget.TextView; import android.widget.Toast;
 
-import androidx.appcompat.app.AppCompatActivity;
+import androidx.activity.result.ActivityResultLauncher; import androidx.activity.result.contract.ActivityResultContracts; import androidx.appcompat.app.AppCompatActivity; import androidx.recyclerview.widget.LinearLayoutManager; import androidx.recyclerview.widget.RecyclerView;
 
-import java.io.BufferedReader; import java.io.FileInputStream; import java.io.InputStreamReader; import java.text.SimpleDateFormat; import java.util.Date; import java.util.Locale;
+import java.io.File; import java.io.IOException; import java.io.OutputStream; import java.util.ArrayList; import java.util.Calendar; import java.util.EnumMap; import java.util.List; import java.util.Locale; import java.util.Map; import java.util.TimeZone; import java.util.function.LongConsumer;
 
-public class GraphActivity extends AppCompatActivity { private TimelineView timeline; private HorizontalScrollView scroll; private View handleLine; private TextView info; private Button btnZoomIn, btnZoomOut, btnViewCsv; private final Handler handler = new Handler(Looper.getMainLooper());
+public class GraphActivity extends AppCompatActivity { private TimelineView timeline; private View handleLine; private TextView info; private Button btnZoomIn, btnZoomOut, btnViewCsv, btnRange, btnStats; private final Handler handler = new Handler(Looper.getMainLooper());
 
 // Drag state
 private float downX, startTX;
 
-// Zoom support
-private ScaleGestureDetector scaleDetector;
-private float scaleFactor = 1.0f;
-
-// Refresh every 30 seconds
-private final Runnable refresher = new Runnable() {
-    @Override
-    public void run() {
-        timeline.refresh();
-        handler.postDelayed(this, 30_000);
-    }
+// Info bubble: rendered at most once per frame into reused buffers
+private final ClockFormat   clock     = new ClockFormat(TimeZone.getDefault());
+private final StringBuilder infoText  = new StringBuilder(64);
+private char[]              infoChars = new char[64];
+private float               pendingInfoX;
+private boolean             infoFramePosted;
+private final Choreographer.FrameCallback infoFrame = frameTimeNanos -> {
+    infoFramePosted = false;
+    renderInfo(pendingInfoX);
 };
 
+// History export: one document launcher per format, the running export if any
+private final Map<HistoryExport.Format, ActivityResultLauncher<String>> exportTargets = new EnumMap<>(HistoryExport.Format.class);
+private HistoryExport export;
+
+// Zoom step of the +/- buttons
+private static final float ZOOM_STEP = 1.25f;
+
 @Override
 protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
@@ -31,12 +36,13 @@ protected void onCreate(Bundle savedInstanceState) {
 
     // Bind views
     timeline   = findViewById(R.id.timeline);
-    scroll     = findViewById(R.id.scroll);
     handleLine = findViewById(R.id.handle_line);
     info       = findViewById(R.id.info);
     btnZoomIn  = findViewById(R.id.btn_zoom_in);
     btnZoomOut = findViewById(R.id.btn_zoom_out);
     btnViewCsv = findViewById(R.id.btn_view_csv);
+    btnRange   = findViewById(R.id.btn_range);
+    btnStats   = findViewById(R.id.btn_stats);
 
     // Ensure handle and bubble are visible and on top
     handleLine.setVisibility(View.VISIBLE);
@@ -44,40 +50,9 @@ protected void onCreate(Bundle savedInstanceState) {
     handleLine.setElevation(8f);
     info.setElevation(16f);
 
-    // Initial draw
-    timeline.refresh();
-
-    // Pinch-to-zoom setup
-    scaleDetector = new ScaleGestureDetector(this,
-        new ScaleGestureDetector.SimpleOnScaleGestureListener() {
-            @Override
-            public boolean onScale(ScaleGestureDetector detector) {
-                scaleFactor *= detector.getScaleFactor();
-                scaleFactor = Math.max(0.5f, Math.min(scaleFactor, 3.0f));
-                timeline.setScaleX(scaleFactor);
-                timeline.setScaleY(scaleFactor);
-                timeline.refresh();
-                return true;
-            }
-        });
-    timeline.setOnTouchListener((v, ev) -> {
-        scaleDetector.onTouchEvent(ev);
-        return false;
-    });
-
-    // Zoom buttons
-    btnZoomIn.setOnClickListener(v -> {
-        scaleFactor = Math.min(scaleFactor * 1.25f, 3.0f);
-        timeline.setScaleX(scaleFactor);
-        timeline.setScaleY(scaleFactor);
-        timeline.refresh();
-    });
-    btnZoomOut.setOnClickListener(v -> {
-        scaleFactor = Math.max(scaleFactor / 1.25f, 0.5f);
-        timeline.setScaleX(scaleFactor);
-        timeline.setScaleY(scaleFactor);
-        timeline.refresh();
-    });
+    // Zoom buttons act around the bubble; pinch is handled by the timeline itself
+    btnZoomIn.setOnClickListener(v -> timeline.zoomBy(ZOOM_STEP, bubbleX()));
+    btnZoomOut.setOnClickListener(v -> timeline.zoomBy(1f / ZOOM_STEP, bubbleX()));
 
     // Drag info bubble (serves as handle)
     info.setOnTouchListener((v, ev) -> {
@@ -89,15 +64,16 @@ protected void onCreate(Bundle savedInstanceState) {
             case MotionEvent.ACTION_MOVE:
                 float dx = ev.getRawX() - downX;
                 float newTX = startTX + dx;
-                // clamp within scaled content width
-                float contentW = scroll.getChildAt(0).getWidth() * scaleFactor;
-                float halfW    = v.getWidth() / 2f;
-                newTX = Math.max(-halfW, Math.min(newTX, contentW - halfW));
+                // clamp so the bubble centre stays over the timeline
+                float halfW = v.getWidth() / 2f;
+                float minTX = timeline.getLeft()  - (v.getLeft() + halfW);
+                float maxTX = timeline.getRight() - (v.getLeft() + halfW);
+                newTX = Math.max(minTX, Math.min(newTX, maxTX));
                 v.setTranslationX(newTX);
 
                 // Move white line above bubble
-                float centerX = newTX + halfW;
-                handleLine.setTranslationX(centerX - handleLine.getWidth() / 2f);
+                float centerX = bubbleX();
+                handleLine.setTranslationX(timeline.getLeft() + centerX - handleLine.getLeft() - handleLine.getWidth() / 2f);
                 updateInfo(centerX);
                 return true;
             default:
@@ -105,28 +81,16 @@ protected void onCreate(Bundle savedInstanceState) {
         }
     });
 
-    // Initial padding, scroll to end, position handles
-    scroll.post(() -> {
-        int halfVp = scroll.getWidth() / 2;
-        timeline.setPadding(
-            timeline.getPaddingLeft(),
-            timeline.getPaddingTop(),
-            halfVp,
-            timeline.getPaddingBottom()
-        );
-        int rawW = scroll.getChildAt(0).getWidth();
-        scroll.scrollTo(rawW - scroll.getWidth(), 0);
-
-        // Calculate translations
-        float endX = rawW * scaleFactor;
-        float tx   = endX - scroll.getScrollX() - (handleLine.getWidth() / 2f);
-        handleLine.setTranslationX(tx);
-        info.setTranslationX(tx + (handleLine.getWidth() / 2f) - (info.getWidth() / 2f));
-        updateInfo(endX);
-
-        // Align bubble at bottom of scroll area
+    // Bubble shows whatever time scrolls under it
+    timeline.setOnViewportChangeListener(t -> updateInfo(bubbleX()));
+
+    // Start at the live end with the handle centred, bubble at the bottom of the timeline
+    timeline.post(() -> {
+        timeline.scrollToEnd();
+        updateInfo(bubbleX());
+
         int marginPx = (int) (8 * getResources().getDisplayMetrics().density);
-        float infoY = scroll.getY() + scroll.getHeight() - info.getHeight() - marginPx;
+        float infoY = timeline.getY() + timeline.getHeight() - info.getHeight() - marginPx;
         info.setY(infoY);
 
         handleLine.bringToFront();
@@ -134,69 +98,328 @@ protected void onCreate(Bundle savedInstanceState) {
     });
 
     // CSV viewer
-    btnViewCsv.setOnClickListener(v -> showCsvDialog());
-}
+    btnViewCsv.setOnClickListener(v -> showLogDialog());
 
-@Override
-protected void onResume() {
-    super.onResume();
-    handler.post(refresher);
+    // Date range picker
+    btnRange.setOnClickListener(v -> pickRange());
+
+    // Connectivity statistics; long-press for the hot-path metrics
+    btnStats.setOnClickListener(v -> showStatsDialog());
+    btnStats.setOnLongClickListener(v -> { showMetricsDialog(); return true; });
+
+    // Export targets must be registered before the activity starts
+    for (HistoryExport.Format f : HistoryExport.Format.values()) {
+        exportTargets.put(f, registerForActivityResult(new ActivityResultContracts.CreateDocument(f.mime),
+                uri -> { if (uri != null) runExport(f, uri); }));
+    }
 }
 
 @Override
 protected void onPause() {
     super.onPause();
-    handler.removeCallbacks(refresher);
+    Choreographer.getInstance().removeFrameCallback(infoFrame);
+    infoFramePosted = false;
+}
+
+@Override
+protected void onDestroy() {
+    super.onDestroy();
+    if (export != null) export.cancel();
+}
+
+/** Bubble centre in timeline coordinates. */
+private float bubbleX() {
+    return info.getLeft() + info.getTranslationX() + info.getWidth() / 2f - timeline.getLeft();
 }
 
 /**
- * Given X in content coordinates, update the info bubble text.
+ * Given X in timeline view coordinates, schedule an info bubble update;
+ * any number of calls within one frame collapse into a single render.
  */
-private void updateInfo(float contentX) {
-    long ts = timeline.getTimestampForX((int) contentX);
-    String ssid = timeline.getSsidAtTime(ts);
-    String time = new SimpleDateFormat("HH:mm", Locale.getDefault())
-            .format(new Date(ts));
-    info.setText(time + "\n" + ssid);
+private void updateInfo(float viewX) {
+    pendingInfoX = viewX;
+    if (!infoFramePosted) {
+        infoFramePosted = true;
+        Choreographer.getInstance().postFrameCallback(infoFrame);
+    }
+}
+
+/** Format "HH:mm\nSSID" into the reused buffers; no per-update allocation. */
+private void renderInfo(float viewX) {
+    long ts = timeline.getTimestampForX(viewX);
+    infoText.setLength(0);
+    clock.appendHourMinute(infoText, ts).append('\n').append(timeline.getSsidAtTime(ts));
+    int len = infoText.length();
+    if (infoChars.length < len) infoChars = new char[len * 2];
+    infoText.getChars(0, len, infoChars, 0);
+    info.setText(infoChars, 0, len);
 }
 
 /**
- * Show raw CSV in a scrollable, monospace dialog.
+ * Pick a day, then a start and an end time, and load just that window into the
+ * timeline (an end before the start means the next day). "Live" goes back to
+ * following the log.
  */
-private void showCsvDialog() {
-    StringBuilder sb = new StringBuilder();
-    SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-    try (FileInputStream fis = openFileInput(OverlayService.EVENT_FILE);
-         BufferedReader br = new BufferedReader(new InputStreamReader(fis))) {
-        sb.append("Time                | Connected | SSID\n");
-        sb.append("-------------------------------------\n");
-        String line;
-        while ((line = br.readLine()) != null) {
-            String[] p = line.split(",", 3);
-            if (p.length < 3) continue;
-            long ts = Long.parseLong(p[0]);
-            boolean conn = Float.parseFloat(p[1]) == 1f;
-            sb.append(String.format(Locale.getDefault(),
-                    "%s | %s       | %s\n",
-                    fmt.format(new Date(ts)),
-                    conn ? "ON" : "OFF",
-                    p[2]
-            ));
+private void pickRange() {
+    pickDateTime("From", timeline::showLive, from -> {
+        Calendar start = Calendar.getInstance();
+        start.setTimeInMillis(from);
+        TimePickerDialog end = new TimePickerDialog(this, (tp, h, min) -> {
+            Calendar to = (Calendar) start.clone();
+            to.set(Calendar.HOUR_OF_DAY, h);
+            to.set(Calendar.MINUTE, min);
+            if (!to.after(start)) to.add(Calendar.DAY_OF_MONTH, 1);
+            timeline.loadRange(from, to.getTimeInMillis());
+        }, (start.get(Calendar.HOUR_OF_DAY) + 4) % 24, start.get(Calendar.MINUTE), true);
+        end.setTitle("To");
+        end.show();
+    });
+}
+
+/**
+ * Date picker followed by a time picker; hands the chosen instant to {@code done}.
+ * @param neutral optional action for a neutral button on the date picker, or null
+ */
+private void pickDateTime(String timeTitle, Runnable neutral, LongConsumer done) {
+    Calendar c = Calendar.getInstance();
+    int hour = c.get(Calendar.HOUR_OF_DAY);
+    DatePickerDialog date = new DatePickerDialog(this, (dp, y, m, d) -> {
+        c.set(y, m, d, 0, 0, 0);
+        c.set(Calendar.MILLISECOND, 0);
+        TimePickerDialog time = new TimePickerDialog(this, (tp, h, min) -> {
+            c.set(Calendar.HOUR_OF_DAY, h);
+            c.set(Calendar.MINUTE, min);
+            done.accept(c.getTimeInMillis());
+        }, hour, 0, true);
+        time.setTitle(timeTitle);
+        time.show();
+    }, c.get(Calendar.YEAR), c.get(Calendar.MONTH), c.get(Calendar.DAY_OF_MONTH));
+    date.getDatePicker().setMaxDate(System.currentTimeMillis());
+    if (neutral != null) date.setButton(DialogInterface.BUTTON_NEUTRAL, "Live", (d, w) -> neutral.run());
+    date.show();
+}
+
+/**
+ * Show the raw event log (archive and active log) as a lazily paged list with
+ * an SSID filter and jump-to-time; pages are read off the main thread.
+ */
+private void showLogDialog() {
+    SsidDictionary ssids = SsidDictionary.shared(new File(getFilesDir(), OverlayService.SSID_FILE));
+    EventPages pages;
+    try {
+        pages = new EventPages(eventFiles());
+    } catch (IOException e) {
+        Toast.makeText(this, "Error reading event log: " + e.getMessage(), Toast.LENGTH_LONG).show();
+        return;
+    }
+    EventLogAdapter adapter = new EventLogAdapter(pages, ssids);
+
+    View root = getLayoutInflater().inflate(R.layout.dialog_event_log, null);
+    TextView status = root.findViewById(R.id.log_status);
+    RecyclerView list = root.findViewById(R.id.log_list);
+    LinearLayoutManager lm = new LinearLayoutManager(this);
+    list.setLayoutManager(lm);
+    list.setAdapter(adapter);
+
+    // SSID filter: everything, disconnected records, then each known SSID by id
+    String[] names = new String[ssids.size() + 2];
+    names[0] = "All SSIDs";
+    names[1] = "(disconnected)";
+    for (int id = 1; id <= ssids.size(); id++) names[id + 1] = ssids.name(id);
+    Spinner filter = root.findViewById(R.id.ssid_filter);
+    filter.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item, names));
+    filter.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+        @Override public void onItemSelected(AdapterView<?> parent, View v, int pos, long id) {
+            status.setText("Filtering…");
+            adapter.setFilter(pos == 0 ? null : pos == 1 ? SsidDictionary.NONE : pos - 1,
+                    () -> status.setText(adapter.getItemCount() + " records"));
         }
-    } catch (Exception e) {
-        sb.append("Error reading CSV: ").append(e.getMessage());
+        @Override public void onNothingSelected(AdapterView<?> parent) {}
+    });
+
+    root.findViewById(R.id.btn_jump).setOnClickListener(v -> pickDateTime("Jump to", null, t ->
+            adapter.rowAt(t, row -> { if (row != null && row >= 0) lm.scrollToPositionWithOffset(row, 0); })));
+
+    new AlertDialog.Builder(this)
+        .setTitle("Raw Event Log")
+        .setView(root)
+        .setPositiveButton("Close", (d, w) -> d.dismiss())
+        .setNeutralButton("Export…", (d, w) -> pickExportFormat())
+        .setOnDismissListener(d -> adapter.close())
+        .show();
+}
+
+/**
+ * Uptime, outages and RSSI distribution for a chosen day and SSID, read from the
+ * running aggregates – instant regardless of history length.
+ */
+private void showStatsDialog() {
+    RssiRecorder.getInstance(this).captureNow();
+    SsidDictionary names = SsidDictionary.shared(new File(getFilesDir(), OverlayService.SSID_FILE));
+    ConnectivityStats stats = ConnectivityStats.getInstance(new File(getFilesDir(), OverlayService.STATS_FILE), names);
+
+    List<Long> days = stats.days();
+    String[] dayNames = new String[days.size() + 1];
+    dayNames[0] = "All days";
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < days.size(); i++) {       // newest first
+        sb.setLength(0);
+        dayNames[i + 1] = clock.appendDayMonth(sb, stats.startOf(days.get(days.size() - 1 - i))).toString();
     }
-    ScrollView sv = new ScrollView(this);
-    TextView tv = new TextView(this);
-    tv.setTypeface(Typeface.MONOSPACE);
-    tv.setText(sb.toString());
-    tv.setPadding(16, 16, 16, 16);
-    sv.addView(tv);
+    List<Integer> ids = stats.ssids();
+    ids.remove(Integer.valueOf(SsidDictionary.NONE));
+    List<String> ssids = new ArrayList<>(ids.size() + 1);
+    ssids.add("All SSIDs");
+    for (int id : ids) ssids.add(names.name(id));
+
+    View root = getLayoutInflater().inflate(R.layout.dialog_stats, null);
+    Spinner daySpinner  = root.findViewById(R.id.stats_day);
+    Spinner ssidSpinner = root.findViewById(R.id.stats_ssid);
+    TextView text       = root.findViewById(R.id.stats_text);
+    daySpinner.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item, dayNames));
+    ssidSpinner.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item, ssids));
+
+    AdapterView.OnItemSelectedListener show = new AdapterView.OnItemSelectedListener() {
+        @Override public void onItemSelected(AdapterView<?> parent, View v, int pos, long id) {
+            int d = daySpinner.getSelectedItemPosition(), s = ssidSpinner.getSelectedItemPosition();
+            long day = d <= 0 ? ConnectivityStats.ALL_DAYS : days.get(days.size() - d);
+            text.setText(formatStats(stats.query(day, s <= 0 ? ConnectivityStats.ALL_SSIDS : ids.get(s - 1), System.currentTimeMillis())));
+        }
+        @Override public void onNothingSelected(AdapterView<?> parent) {}
+    };
+    daySpinner.setOnItemSelectedListener(show);
+    ssidSpinner.setOnItemSelectedListener(show);
+
     new AlertDialog.Builder(this)
-        .setTitle("Raw CSV Data")
-        .setView(sv)
+        .setTitle("Connectivity Stats")
+        .setView(root)
         .setPositiveButton("Close", (d, w) -> d.dismiss())
         .show();
 }
 
+/** Debug panel: the process-wide {@link Metrics}, the same table {@code dumpsys} prints for the service. */
+private void showMetricsDialog() {
+    View root = getLayoutInflater().inflate(R.layout.dialog_metrics, null);
+    TextView text = root.findViewById(R.id.metrics_text);
+    Runnable render = () -> text.setText(Metrics.dump(new StringBuilder("Since reset  ")
+            .append(duration(System.currentTimeMillis() - Metrics.since())).append("\n\n")));
+    render.run();
+
+    AlertDialog dialog = new AlertDialog.Builder(this)
+        .setTitle("Metrics")
+        .setView(root)
+        .setNeutralButton("Refresh", null)
+        .setNegativeButton("Reset", null)
+        .setPositiveButton("Close", (d, w) -> d.dismiss())
+        .show();
+    // set after show() so Refresh and Reset keep the dialog open
+    dialog.getButton(DialogInterface.BUTTON_NEUTRAL).setOnClickListener(v -> render.run());
+    dialog.getButton(DialogInterface.BUTTON_NEGATIVE).setOnClickListener(v -> { Metrics.reset(); render.run(); });
+}
+
+private static String formatStats(ConnectivityStats.Summary s) {
+    StringBuilder sb = new StringBuilder();
+    double up = s.uptime();
+    sb.append("Uptime      ").append(Double.isNaN(up) ? "–" : String.format(Locale.US, "%.2f %%", up * 100)).append('\n')
+      .append("Connected   ").append(duration(s.upMs())).append('\n')
+      .append("Down        ").append(duration(s.downMs())).append('\n')
+      .append("Outages     ").append(s.outages()).append('\n');
+    if (s.outages() > 0) {
+        sb.append("  mean      ").append(duration(s.meanOutageMs())).append('\n')
+          .append("  max       ").append(duration(s.maxOutageMs())).append('\n')
+          .append("MTBF        ").append(duration(s.mtbfMs())).append('\n');
+    }
+    sb.append("RSSI        ").append(s.samples()).append(" samples");
+    if (s.samples() > 0) {
+        sb.append('\n').append(String.format(Locale.US, "  min/avg/max  %d / %.1f / %d dBm", s.rssiMin(), s.rssiMean(), s.rssiMax()))
+          .append('\n').append(String.format(Locale.US, "  p5/p50/p95   %d / %d / %d dBm",
+                  s.rssiPercentile(0.05), s.rssiPercentile(0.5), s.rssiPercentile(0.95)));
+    }
+    return sb.toString();
+}
+
+/** "2 d 03 h", "5 h 07 m" or "12 m 30 s". */
+private static String duration(long ms) {
+    long s = ms / 1000, m = s / 60, h = m / 60, d = h / 24;
+    if (d > 0) return String.format(Locale.US, "%d d %02d h", d, h % 24);
+    if (h > 0) return String.format(Locale.US, "%d h %02d m", h, m % 60);
+    return String.format(Locale.US, "%d m %02d s", m, s % 60);
+}
+
+private EventArchive archive() {
+    return new EventArchive(new File(getFilesDir(), OverlayService.ARCHIVE_DIR), OverlayService.RETENTION);
+}
+
+/** Archived segments, oldest first, then the active log. */
+private List<File> eventFiles() {
+    List<File> files = new ArrayList<>(archive().segments(Long.MIN_VALUE, Long.MAX_VALUE));
+    files.add(new File(getFilesDir(), OverlayService.EVENT_FILE));
+    return files;
+}
+
+/** Choose a format, then let the user pick the target document. */
+private void pickExportFormat() {
+    HistoryExport.Format[] formats = HistoryExport.Format.values();
+    String[] labels = { "CSV", "JSON Lines", "Columnar binary" };
+    new AlertDialog.Builder(this)
+        .setTitle("Export history")
+        .setItems(labels, (d, which) -> exportTargets.get(formats[which]).launch("wifi_history." + formats[which].extension))
+        .show();
+}
+
+/**
+ * Stream the event and RSSI history into {@code uri} on a worker thread, with a
+ * progress dialog whose Cancel stops the export and deletes the partial document.
+ */
+private void runExport(HistoryExport.Format format, Uri uri) {
+    if (export != null) {
+        Toast.makeText(this, "An export is already running", Toast.LENGTH_SHORT).show();
+        return;
+    }
+    HistoryExport job = new HistoryExport(archive(), eventFiles(), new File(getFilesDir(), RssiRecorder.STORE_DIR),
+            SsidDictionary.shared(new File(getFilesDir(), OverlayService.SSID_FILE)),
+            SsidDictionary.shared(new File(getFilesDir(), OverlayService.BSSID_FILE)));
+    export = job;
+
+    ProgressBar bar = new ProgressBar(this, null, android.R.attr.progressBarStyleHorizontal);
+    bar.setMax(1000);
+    int pad = (int) (16 * getResources().getDisplayMetrics().density);
+    bar.setPadding(pad, pad, pad, pad);
+    AlertDialog dialog = new AlertDialog.Builder(this)
+        .setTitle("Exporting…")
+        .setView(bar)
+        .setCancelable(false)
+        .setNegativeButton("Cancel", (d, w) -> job.cancel())
+        .show();
+
+    new Thread(() -> {
+        int[] shown = {-1};
+        String result;
+        boolean keep = false;
+        try (OutputStream out = getContentResolver().openOutputStream(uri, "wt")) {
+            if (out == null) throw new IOException("Cannot open " + uri);
+            keep = job.write(format, out, (done, total) -> {
+                int permille = total == 0 ? 1000 : (int) (done * 1000 / total);
+                if (permille != shown[0]) {     // at most 1000 posts per export
+                    shown[0] = permille;
+                    handler.post(() -> bar.setProgress(permille));
+                }
+            });
+            result = keep ? "History exported" : "Export cancelled";
+        } catch (IOException | RuntimeException e) {
+            result = "Export failed: " + e.getMessage();
+        }
+        if (!keep) {
+            try { DocumentsContract.deleteDocument(getContentResolver(), uri); } catch (Exception ignored) {}
+        }
+        String msg = result;
+        handler.post(() -> {
+            export = null;
+            if (isDestroyed()) return;
+            dialog.dismiss();
+            Toast.makeText(this, msg, Toast.LENGTH_LONG).show();
+        });
+    }, "history-export").start();
+}
+
 }
@@ -1,8 +1,10 @@
 package com.example.overlaywifi;
 
 import android.app.*;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.graphics.PixelFormat;
 import android.net.*;
 import android.net.wifi.WifiInfo;
@@ -16,26 +18,64 @@ import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
 import androidx.core.graphics.drawable.DrawableCompat;
 
-import java.io.FileOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
 import java.io.IOException;
-import java.util.Locale;
-import java.util.concurrent.TimeUnit;
+import java.io.PrintWriter;
 
 import eightbitlab.com.blurview.BlurView;
 
 /**
  * Foreground service that shows a draggable Wi‑Fi badge.
- * Long‑press opens a graph; every connection change is stored in a CSV file.
+ * Long‑press opens a graph; every connection change that outlasts the {@link FlapFilter}
+ * is stored in the binary {@link EventLog}, with the flaps it absorbed.
+ * The badge's elapsed-time tick only runs while the screen is on and the badge window is visible.
+ * The SSID comes with the network callback where the platform provides it (API 29+); otherwise
+ * it is looked up with a bounded backoff that ends in an explicit "unknown" state.
  */
 public class OverlayService extends Service {
-    /** internal‑storage CSV — timestamp(ms), 0|1, ssid */
-    public static final String EVENT_FILE = "wifi_events.csv";
+    /** internal‑storage event log — see {@link EventLog} for the record layout */
+    public static final String EVENT_FILE      = "wifi_events.bin";
+    /** SSID names referenced by the event log's ssid id column */
+    public static final String SSID_FILE       = "wifi_ssids.txt";
+    /** pre‑binary log, converted once by {@link EventCsv#migrate} */
+    public static final String LEGACY_CSV_FILE = "wifi_events.csv";
+    /** BSSIDs referenced by the network ids of RSSI samples */
+    public static final String BSSID_FILE      = "wifi_bssids.txt";
+    /** running per‑day / per‑SSID aggregates — see {@link ConnectivityStats} */
+    public static final String STATS_FILE      = "wifi_stats.bin";
+    /** rotated segments and rollups — see {@link EventArchive} */
+    public static final String ARCHIVE_DIR     = "events";
+    /** daily / 256 KiB rotation, raw for 30 days, hourly rollups for a year */
+    public static final EventArchive.Policy RETENTION = EventArchive.Policy.DEFAULT;
+
+    /** debounce of raw link reports; suppressed flaps are counted on the committed event */
+    private static final FlapFilter.Policy FLAP_POLICY = FlapFilter.Policy.DEFAULT;
+
+    /** group‑commit window for the journal; a crash loses at most this much */
+    private static final EventJournal.FlushPolicy FLUSH_POLICY = EventJournal.FlushPolicy.everyMillis(1_000, true);
+
+    /** hot-path metrics, dumped by {@link #dump} — see {@link Metrics} */
+    private static final Metrics.Counter   LINK_REPORTS = Metrics.counter("service.link_reports");
+    private static final Metrics.Histogram LINK_LAG     = Metrics.histogram("service.link_report_lag");
+    private static final Metrics.Histogram LOG_EVENT    = Metrics.histogram("service.log_event");
+    private static final Metrics.Histogram CONN_INFO    = Metrics.histogram("wifi.connection_info");
+
+    /** SSID lookup when no callback carried it: 0.5 s doubling up to 8 s, 7 tries (~30 s), then unknown */
+    private static final long SSID_RETRY_FIRST_MS = 500;
+    private static final long SSID_RETRY_MAX_MS   = 8_000;
+    private static final int  SSID_RETRY_LIMIT    = 7;
+    private static final String SSID_PENDING = "–";             // shown while resolving
+    private static final String SSID_UNKNOWN = "NEZNÁMÁ SÍŤ";   // lookup gave up
+
+    private static final Metrics.Counter SSID_RETRIES    = Metrics.counter("service.ssid_retries");
+    private static final Metrics.Counter SSID_UNRESOLVED = Metrics.counter("service.ssid_unresolved");
 
     private static final String CHANNEL_ID = "overlay_wifi";
     private static final int    NOTIF_ID   = 1;
 
     private WindowManager wm;
-    private View          badge;
+    private BadgeLayout   badge;
     private TextView      tvName, tvSince;
     private ImageView     iv;
 
@@ -45,7 +85,25 @@ public class OverlayService extends Service {
 
     private boolean connected  = false;
     private long    stateStart = System.currentTimeMillis();
-    private String  ssid       = "–";
+    private String  ssid       = SSID_PENDING;
+
+    private volatile String linkSsid;          // last SSID the callback carried; written on its thread
+    private long            ssidRetryMs;       // current backoff delay
+    private int             ssidTries;
+    private boolean         eventHeld;         // the current state is not yet logged: its SSID is still resolving
+
+    private final FlapFilter flapFilter = new FlapFilter(FLAP_POLICY);   // main looper only
+    private int              flaps;                                      // suppressed before the current state
+
+    private EventJournal      journal;
+    private EventStore        events;
+    private RssiRecorder      rssi;
+    private ConnectivityStats stats;
+    private SsidDictionary    ssidNames;      // ids for the stats, shared with the journal
+
+    // tick scheduling: runs only while both hold
+    private boolean      screenOn = true, badgeVisible = true, ticking;
+    private final char[] sinceChars = new char[20];
 
     /*──────────────────────── lifecycle ───────────────────────*/
 
@@ -57,33 +115,126 @@ public class OverlayService extends Service {
         cm   = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
         wm   = (WindowManager) getSystemService(WINDOW_SERVICE);
 
+        journal = new EventJournal(new File(getFilesDir(), EVENT_FILE), new File(getFilesDir(), SSID_FILE),
+                new File(getFilesDir(), LEGACY_CSV_FILE),
+                new EventArchive(new File(getFilesDir(), ARCHIVE_DIR), RETENTION), FLUSH_POLICY);
+        ssidNames = SsidDictionary.shared(new File(getFilesDir(), SSID_FILE));
+        stats = ConnectivityStats.getInstance(new File(getFilesDir(), STATS_FILE), ssidNames);
+        events = eventStore(this);
+
         cm.registerNetworkCallback(new NetworkRequest.Builder().addTransportType(NetworkCapabilities.TRANSPORT_WIFI).build(), netCb);
 
+        rssi = RssiRecorder.getInstance(this);
+        rssi.start();
+
+        screenOn = getSystemService(PowerManager.class).isInteractive();
+        IntentFilter screen = new IntentFilter(Intent.ACTION_SCREEN_OFF);
+        screen.addAction(Intent.ACTION_SCREEN_ON);
+        registerReceiver(screenReceiver, screen);
+
         inflateBadge();
-        onConnChange(isWifiValidated());
-        ui.post(tick);
+        long now = System.currentTimeMillis();
+        boolean up = isWifiValidated();
+        flapFilter.reset(now, up);               // the start-up snapshot is taken as stable
+        onConnChange(up, now, 0);
+        if (!connected) stats.onEvent(stateStart, false, SsidDictionary.NONE);   // time the initial outage too
+        updateTicking();
     }
 
     @Override public void onDestroy() {
         cm.unregisterNetworkCallback(netCb);
+        unregisterReceiver(screenReceiver);
+        discardFlaps();
+        logEvent();                              // a connection whose SSID never resolved is logged unnamed
         ui.removeCallbacks(tick);
+        ui.removeCallbacks(renderState);
         ui.removeCallbacks(ssidRetry);
+        ui.removeCallbacks(flapCommit);
+        rssi.stop();
         if (badge != null) wm.removeView(badge);
+        journal.close();
+        try { stats.save(System.currentTimeMillis()); } catch (IOException ignored) {}
         super.onDestroy();
     }
 
     @Nullable @Override public IBinder onBind(Intent i) { return null; }
 
+    /**
+     * {@code adb shell dumpsys activity service com.example.overlaywifi/.OverlayService [reset]}:
+     * current state plus the {@link Metrics} of this process; {@code reset} zeroes them.
+     */
+    @Override protected void dump(FileDescriptor fd, PrintWriter pw, String[] args) {
+        if (args != null && args.length > 0 && "reset".equals(args[0])) {
+            Metrics.reset();
+            pw.println("metrics reset");
+            return;
+        }
+        long now = System.currentTimeMillis();
+        char[] b = new char[20];
+        pw.println("state     " + (connected ? "connected " + ssid : "disconnected")
+                + " for " + new String(b, 0, ClockFormat.formatElapsed(now - stateStart, b)));
+        pw.println("journal   " + journal.dropped() + " events dropped");
+        pw.println("metrics   last " + new String(b, 0, ClockFormat.formatElapsed(now - Metrics.since(), b)));
+        pw.print(Metrics.dump(new StringBuilder()));
+    }
+
     /*──────────────────────── network callback ─────────────────*/
 
-    private final ConnectivityManager.NetworkCallback netCb = new ConnectivityManager.NetworkCallback() {
-        @Override public void onAvailable(Network n)          { onConnChange(true); }
-        @Override public void onLost(Network n)               { onConnChange(false);}
+    /** From API 31 the SSID in the capabilities is redacted unless the callback asks for location info. */
+    private final ConnectivityManager.NetworkCallback netCb = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+            ? new WifiCallback(ConnectivityManager.NetworkCallback.FLAG_INCLUDE_LOCATION_INFO)
+            : new WifiCallback();
+
+    private class WifiCallback extends ConnectivityManager.NetworkCallback {
+        WifiCallback() {}
+        WifiCallback(int flags) { super(flags); }
+
+        @Override public void onAvailable(Network n)          { onLinkReport(true); }
+        @Override public void onLost(Network n)               { linkSsid = null; onLinkReport(false); }
         @Override public void onCapabilitiesChanged(Network n, NetworkCapabilities c) {
             boolean ok = c.hasTransport(NetworkCapabilities.TRANSPORT_WIFI) && c.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
-            onConnChange(ok);
+            onLinkReport(ok);
+            String s = ssidOf(c);
+            if (s != null && !s.equals(linkSsid)) {      // capabilities repeat on every RSSI change
+                linkSsid = s;
+                ui.post(() -> onLinkSsid(s));
+            }
         }
-    };
+    }
+
+    /** Raw report from the callback thread; the flap filter runs on the main looper. */
+    private void onLinkReport(boolean up) {
+        long t = System.currentTimeMillis(), t0 = System.nanoTime();
+        LINK_REPORTS.inc();
+        ui.post(() -> {
+            LINK_LAG.since(t0);
+            long due = flapFilter.offer(t, up);
+            ui.removeCallbacks(flapCommit);
+            if (due >= 0) ui.postDelayed(flapCommit, Math.max(0, due - System.currentTimeMillis()));
+        });
+    }
+
+    /** Fires once a pending state has held for its hold time; commits it as one event. */
+    private final Runnable flapCommit = () -> commitFlap(System.currentTimeMillis());
+
+    /** Commit the pending state if it has held by {@code now}. */
+    private void commitFlap(long now) {
+        if (flapFilter.poll(now))
+            onConnChange(flapFilter.state(), flapFilter.since(), flapFilter.flaps());
+    }
+
+    /**
+     * At shutdown a transition still waiting out its hold time never met it, so it is
+     * dropped rather than committed; its reports are added to the flaps of the committed
+     * state, which is logged again with the new count if it already went out (readers
+     * keep the last of equal events).
+     */
+    private void discardFlaps() {
+        int dropped = flapFilter.discard();
+        if (dropped == 0) return;
+        flaps     = Math.min(FlapFilter.MAX_FLAPS, flaps + dropped);
+        eventHeld = true;
+    }
 
     private boolean isWifiValidated() {
         Network n = cm.getActiveNetwork(); if (n == null) return false;
@@ -91,26 +242,63 @@ public class OverlayService extends Service {
         return c != null && c.hasTransport(NetworkCapabilities.TRANSPORT_WIFI) && c.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
     }
 
-    private void onConnChange(boolean now) {
+    /** A committed state change that began at {@code at}, after {@code suppressed} filtered flaps. */
+    private void onConnChange(boolean now, long at, int suppressed) {
         if (now == connected) return;
+        logEvent();                              // the previous state, if still held, goes out without a name
         connected  = now;
-        stateStart = System.currentTimeMillis();
+        stateStart = at;
+        flaps      = suppressed;
         ui.removeCallbacks(ssidRetry);
-        if (connected) { ssid = "–"; if (!tryCacheSsid()) ui.postDelayed(ssidRetry, 500); } else ssid = "–";
-        logEvent();
+        String known = linkSsid;
+        ssid = SSID_PENDING;
+        if (connected && known != null) ssid = known;
+        else if (connected && !tryCacheSsid()) {
+            ssidTries   = 0;
+            ssidRetryMs = SSID_RETRY_FIRST_MS;
+            ui.postDelayed(ssidRetry, ssidRetryMs);
+        }
+        stats.onEvent(stateStart, connected, loggedId());   // timed now; a late SSID moves it via onSsid
+        eventHeld = true;
+        if (!connected || ssidResolved()) logEvent();
+        rssi.onConnectionChanged(connected);
         updateUi();
     }
 
-    /*──────────────────────── CSV logger ──────────────────────*/
+    /*──────────────────────── event logger ────────────────────*/
+    /**
+     * Hands the held event to the journal thread and the in-memory store; no disk I/O on the main looper.
+     * A connection is held until its SSID resolves or the lookup gives up, so the log never carries
+     * a badge placeholder – an unresolved name is logged as {@link SsidDictionary#NONE}.
+     */
     private void logEvent() {
-        String line = System.currentTimeMillis()+","+(connected?1:0)+","+(connected?ssid:"-")+"\n";
-        try (FileOutputStream fos = openFileOutput(EVENT_FILE, MODE_APPEND)) { fos.write(line.getBytes()); } catch (IOException ignored) {}
+        if (!eventHeld) return;
+        eventHeld = false;
+        long t0 = System.nanoTime();
+        String name = loggedName();
+        journal.append(stateStart, connected, name, flaps);
+        events.append(stateStart, connected, name);
+        LOG_EVENT.since(t0);
+    }
+
+    private String loggedName() {
+        return connected && ssidResolved() ? ssid : SsidDictionary.NONE_NAME;
+    }
+
+    /** Id of {@link #loggedName} for the stats; only a network's first sighting appends to the table. */
+    private int loggedId() {
+        try { return ssidNames.intern(loggedName()); } catch (IOException e) { return SsidDictionary.NONE; }
+    }
+
+    /** Compared by identity: a real network may well be called "–". */
+    private boolean ssidResolved() {
+        return ssid != SSID_PENDING && ssid != SSID_UNKNOWN;
     }
 
     /*──────────────────────── badge + blur ───────────────────*/
 
     private void inflateBadge() {
-        badge   = View.inflate(this, R.layout.overlay_badge, null);
+        badge   = (BadgeLayout) View.inflate(this, R.layout.overlay_badge, null);
         tvName  = badge.findViewById(R.id.text);
         tvSince = badge.findViewById(R.id.since);
         iv      = badge.findViewById(R.id.icon);
@@ -125,6 +313,7 @@ public class OverlayService extends Service {
         // Optionally, add vertical offset in pixels:
         // lp.y = 50;  // move down 50px from top
 
+        badge.setOnWindowVisibilityListener(visible -> { badgeVisible = visible; updateTicking(); });
         wm.addView(badge, lp);
         badge.post(this::initBlur);
         makeDraggableAndLongPress(badge);
@@ -161,47 +350,121 @@ public class OverlayService extends Service {
 
     /*──────────────────────── UI update loop ───────────────────*/
 
-    private final Runnable ssidRetry = () -> {
-        if (connected && tryCacheSsid()) updateUi();
-        else ui.postDelayed(this.ssidRetry, 500);
+    /** Backoff lookup while no callback carried the SSID; settles on {@link #SSID_UNKNOWN} after the last try. */
+    private final Runnable ssidRetry = new Runnable() {
+        @Override public void run() {
+            if (!connected) return;
+            SSID_RETRIES.inc();
+            if (tryCacheSsid()) { stats.onSsid(loggedId()); logEvent(); updateUi(); return; }
+            if (++ssidTries >= SSID_RETRY_LIMIT) {
+                ssid = SSID_UNKNOWN;
+                SSID_UNRESOLVED.inc();
+                logEvent();
+                updateUi();
+                return;
+            }
+            ssidRetryMs = Math.min(SSID_RETRY_MAX_MS, ssidRetryMs * 2);
+            ui.postDelayed(this, ssidRetryMs);
+        }
+    };
+
+    /**
+     * The callback reported a new SSID; replaces a pending lookup or an unknown state.
+     * A roam – a new name after one was already logged – starts a new connected stretch
+     * now, logged like a connection so the log splits its time between the networks as
+     * the stats do.
+     */
+    private void onLinkSsid(String s) {
+        if (!connected || s.equals(ssid)) return;
+        ui.removeCallbacks(ssidRetry);
+        boolean roam = ssidResolved();
+        ssid = s;
+        if (roam) {
+            stateStart = System.currentTimeMillis();
+            flaps      = 0;
+            stats.onEvent(stateStart, true, loggedId());
+            eventHeld  = true;
+        } else {
+            stats.onSsid(loggedId());
+        }
+        logEvent();
+        updateUi();
+    }
+
+    private final BroadcastReceiver screenReceiver = new BroadcastReceiver() {
+        @Override public void onReceive(Context c, Intent i) {
+            screenOn = Intent.ACTION_SCREEN_ON.equals(i.getAction());
+            updateTicking();
+        }
     };
 
+    /** Start or stop the tick to match screen and badge visibility; main thread only. */
+    private void updateTicking() {
+        boolean want = screenOn && badgeVisible;
+        if (want == ticking) return;
+        ticking = want;
+        ui.removeCallbacks(tick);
+        if (want) tick.run();
+    }
+
+    /** Renders the elapsed time, then sleeps until it next changes (the next whole second of the state). */
     private final Runnable tick = new Runnable() {
         @Override public void run() {
-            updateUi();
-            ui.postDelayed(this, 1000);
+            long d = System.currentTimeMillis() - stateStart;
+            tvSince.setText(sinceChars, 0, ClockFormat.formatElapsed(d, sinceChars));
+            ui.postDelayed(this, 1000 - Math.floorMod(d, 1000L));
         }
     };
 
     /*──────────────────────── utils ───────────────────────────*/
 
+    /** The process-wide {@link EventStore} over this app's log; the graph reads it, {@link #logEvent} feeds it. */
+    static EventStore eventStore(Context ctx) {
+        File dir = ctx.getApplicationContext().getFilesDir();
+        return EventStore.shared(new File(dir, EVENT_FILE),
+                new EventArchive(new File(dir, ARCHIVE_DIR), RETENTION), SsidDictionary.shared(new File(dir, SSID_FILE)));
+    }
+
     private boolean tryCacheSsid() {
+        long t0 = System.nanoTime();
         WifiInfo i = wifi.getConnectionInfo();
-        if (i == null) return false;
-        String s = i.getSSID();
-        if (s == null || s.equals("<unknown ssid>")) return false;
-        if (s.startsWith("\"") && s.endsWith("\"")) s = s.substring(1, s.length() - 1);
+        CONN_INFO.since(t0);
+        String s = i != null ? ssidName(i.getSSID()) : null;
+        if (s == null) return false;
         ssid = s;
         return true;
     }
 
-    private void updateUi() {
-        long d = System.currentTimeMillis() - stateStart;
-        final String since = String.format(Locale.getDefault(), "%02d:%02d:%02d",
-                TimeUnit.MILLISECONDS.toHours(d),
-                (TimeUnit.MILLISECONDS.toMinutes(d) % 60),
-                (TimeUnit.MILLISECONDS.toSeconds(d) % 60));
+    /** SSID carried by Wi‑Fi capabilities (API 29+), or null if absent or redacted. */
+    private static String ssidOf(NetworkCapabilities c) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) return null;
+        TransportInfo t = c.getTransportInfo();
+        return t instanceof WifiInfo ? ssidName(((WifiInfo) t).getSSID()) : null;
+    }
 
-        final int color = connected ? 0xFF00C853 : 0xFFD32F2F;
-        ui.post(() -> {
-            tvName.setText(connected ? ssid : "NENÍ SIGNÁL");
-            tvSince.setText(since);
-            tvName.setTextColor(0xFF000000);      // keep text black
-            tvSince.setTextColor(0xFF000000);
-            DrawableCompat.setTint(iv.getDrawable(), color);
-        });
+    /** Quotes stripped; null when the platform hides the name from us. */
+    private static String ssidName(String raw) {
+        if (raw == null || raw.equals("<unknown ssid>")) return null;
+        return raw.length() > 1 && raw.startsWith("\"") && raw.endsWith("\"") ? raw.substring(1, raw.length() - 1) : raw;
+    }
+
+    /** Safe from any thread: the network callback runs off the main looper. */
+    private void updateUi() {
+        ui.post(renderState);
     }
 
+    /** Name and colour of the badge; restarts the tick so it realigns to the new state start. */
+    private final Runnable renderState = () -> {
+        tvName.setText(connected ? ssid : "NENÍ SIGNÁL");
+        tvName.setTextColor(0xFF000000);      // keep text black
+        tvSince.setTextColor(0xFF000000);
+        DrawableCompat.setTint(iv.getDrawable(), connected ? 0xFF00C853 : 0xFFD32F2F);
+        if (ticking) {
+            ui.removeCallbacks(tick);
+            tick.run();
+        }
+    };
+
     private Notification buildNotification() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             NotificationChannel ch = new NotificationChannel(
@@ -4,18 +4,26 @@ import android.content.Context;
 import android.net.wifi.WifiInfo;
 import android.net.wifi.WifiManager;
 import android.os.Handler;
-import android.os.Looper;
+import android.os.HandlerThread;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.io.File;
+import java.io.IOException;
 
 /**
- * Keeps a 10-second RSSI log for the last 8 hours (2 880 samples) and exposes:
+ * Keeps an adaptive-rate RSSI log for the last 8 hours and exposes:
  *   • {@link #start()} / {@link #stop()}  – begin / halt background sampling
+ *   • {@link #onConnectionChanged}        – burst after a change, pause while offline
+ *   • {@link #setPolicy}                  – tune the {@link AdaptiveSampler} rates
  *   • {@link #captureNow()}               – force one immediate sample
- *   • {@link #snapshot()}                 – thread-safe copy of the buffer
+ *   • {@link #copy} / {@link #view()}     – lock-free reads of the buffer
  *   • {@link #currentSsid()}              – best-effort SSID for UI titles
-  * Singleton – obtain via {@code RssiRecorder.getInstance(context)}.
+ * Sampling runs on its own {@link HandlerThread}, never on the main looper; every
+ * sample carries the interval in effect so graphs can size gaps correctly.
+ * Samples are tagged with the {@link SsidDictionary} ids of the SSID and BSSID
+ * sampled (names are resolved only for display) and appended to an {@link RssiStore}
+ * under {@code files/rssi/}; the last 8 hours are restored from it when the process
+ * is recreated. They also feed the {@link ConnectivityStats} RSSI aggregates.
+ * Singleton – obtain via {@code RssiRecorder.getInstance(context)}.
  * No runtime permissions requested here; caller handles ACCESS_FINE_LOCATION.
  */
 public class RssiRecorder {
@@ -36,15 +44,35 @@ public class RssiRecorder {
     private RssiRecorder(Context ctx) {
         wifi = (WifiManager) ctx.getApplicationContext()
                 .getSystemService(Context.WIFI_SERVICE);
+        store = new RssiStore(new File(ctx.getApplicationContext().getFilesDir(), STORE_DIR));
+        ssidNames  = SsidDictionary.shared(new File(ctx.getApplicationContext().getFilesDir(), OverlayService.SSID_FILE));
+        bssidNames = SsidDictionary.shared(new File(ctx.getApplicationContext().getFilesDir(), OverlayService.BSSID_FILE));
+        stats = ConnectivityStats.getInstance(new File(ctx.getApplicationContext().getFilesDir(), OverlayService.STATS_FILE), ssidNames);
+        HandlerThread t = new HandlerThread("rssi-sampler");
+        t.start();
+        handler = new Handler(t.getLooper());
+        handler.post(() -> {                        // runs before any sample is taken
+            try {
+                store.restore(System.currentTimeMillis() - WINDOW_MS, new RssiStore.Sink() {
+                    @Override public void onSample(long t, int rssi, int intervalMs) { ring.add(t, rssi, intervalMs, SsidDictionary.NONE); }
+                    @Override public void onSample(long t, int rssi, int intervalMs, int ssidId, int bssidId) {
+                        ring.add(t, rssi, intervalMs, ssidId);
+                    }
+                });
+            } catch (IOException ignored) {}
+        });
     }
 
     /* ---------- public API ---------- */
 
-    /** Start 10-second sampler (idempotent). */
+    /** {@link RssiStore} directory under {@code files/}. */
+    public static final String STORE_DIR = "rssi";
+
+    /** Start sampler (idempotent); it only ticks once {@link #onConnectionChanged} reports a connection. */
     public void start() {
         if (!running) {
             running = true;
-            handler.post(tick);        // first run in 10 s
+            handler.post(tick);
         }
     }
 
@@ -54,14 +82,44 @@ public class RssiRecorder {
         handler.removeCallbacks(tick);
     }
 
-    /** Force one sample immediately (used by stats dialog). */
-    public void captureNow() { sample(); }
+    /** Replace the rate policy; takes effect from the next sample. */
+    public void setPolicy(AdaptiveSampler.Policy p) {
+        handler.post(() -> sampler = new AdaptiveSampler(p));
+    }
 
-    /** Copy of the ring buffer; safe for any thread. */
-    public Deque<Entry> snapshot() {
-        synchronized (ring) { return new ArrayDeque<>(ring); }
+    /**
+     * Connection state from the overlay service: going up starts a burst,
+     * going down records one 0 dBm sample and pauses sampling until reconnect.
+     */
+    public void onConnectionChanged(boolean connected) {
+        handler.post(() -> {
+            this.connected = connected;
+            if (!running) return;
+            handler.removeCallbacks(tick);
+            if (connected) {
+                sampler.onConnectionChange(System.currentTimeMillis());
+                handler.post(tick);
+            } else {
+                record(System.currentTimeMillis(), 0, 0, null);
+            }
+        });
     }
 
+    /** Force one sample immediately (used by stats dialog). */
+    public void captureNow() { handler.post(() -> sample(currentInterval)); }
+
+    /**
+     * Copy samples with {@code from ≤ t < to} into caller-supplied arrays;
+     * lock-free, no allocation, safe for any thread.
+     * @return number of samples copied
+     */
+    public int copy(long from, long to, long[] times, byte[] rssi) {
+        return ring.copy(from, to, times, rssi);
+    }
+
+    /** Read-only view of the buffer; call {@code refresh()} on it to re-pin newer samples. */
+    public RssiRing.View view() { return ring.view(); }
+
     /** Best-effort SSID (quotes stripped); returns "Unknown" if unavailable. */
     public String currentSsid() {
         WifiInfo i = wifi.getConnectionInfo();
@@ -76,38 +134,77 @@ public class RssiRecorder {
 
     /* ---------- implementation details ---------- */
 
-    private static final int PERIOD_MS   = 10_000;          // 10 s
-    private static final int MAX_SAMPLES = 8 * 60 * 60 / 10;    // 2 880 (8 h)
+    private static final long   WINDOW_MS   = 8 * 60 * 60 * 1000L;      // 8 h
+    private static final int    MAX_SAMPLES = 8 * 60 * 60 / 2;          // 14 400 – 8 h even at a 2 s burst rate
+    private static final String NO_BSSID    = "02:00:00:00:00:00";      // reported without location access
 
-    public static class Entry {
-        public final long  t;     // wall-clock millis
-        public final int   rssi;  // dBm (0 when disconnected)
-        Entry(long t, int r) { this.t = t; this.rssi = r; }
-    }
+    private static final Metrics.Histogram SAMPLE    = Metrics.histogram("rssi.sample");            // whole tick
+    private static final Metrics.Histogram CONN_INFO = Metrics.histogram("wifi.connection_info");   // binder call alone
 
     private final WifiManager wifi;
-    private final Handler     handler = new Handler(Looper.getMainLooper());
-    private final Deque<Entry> ring   = new ArrayDeque<>(MAX_SAMPLES + 10);
+    private final Handler     handler;                               // rssi-sampler thread
+    private final RssiRing    ring    = new RssiRing(MAX_SAMPLES);
+    private final RssiStore   store;                                 // sampler thread only
+    private final ConnectivityStats stats;                           // persisted from the sampler thread
+    private final SsidDictionary    ssidNames, bssidNames;           // shared with the event journal
+
+    // last network seen by the sampler and its ids; interned only when it changes
+    private String lastSsid = "", lastBssid = "";
+    private int    ssidId, bssidId;
+
+    // confined to the sampler thread
+    private AdaptiveSampler sampler         = new AdaptiveSampler(AdaptiveSampler.Policy.DEFAULT);
+    private int             currentInterval = (int) AdaptiveSampler.Policy.DEFAULT.normalMs;
+    private boolean         connected       = false;
 
-    private boolean running = false;
+    private volatile boolean running = false;
 
-    /** Runnable scheduled every 10 s. */
+    /** Runnable re-scheduled by the adaptive policy; idles while disconnected. */
     private final Runnable tick = new Runnable() {
         @Override public void run() {
-            if (!running) return;
-            sample();
-            handler.postDelayed(this, PERIOD_MS);
+            if (!running || !connected) return;
+            int rssi = sample(currentInterval);
+            currentInterval = (int) sampler.onSample(System.currentTimeMillis(), rssi);
+            handler.postDelayed(this, currentInterval);
         }
     };
 
-    /** Obtain RSSI (or 0) and push into ring buffer. */
-    private void sample() {
+    /**
+     * Obtain RSSI (or 0), push into ring buffer (sampler thread is the ring's only writer)
+     * and into the running stats, which are persisted from here every few minutes.
+     */
+    private int sample(int intervalMs) {
+        long t0 = System.nanoTime();
         WifiInfo info = wifi.getConnectionInfo();
+        CONN_INFO.since(t0);
         int rssi = (info != null && info.getNetworkId() != -1) ? info.getRssi() : 0;
+        long t = System.currentTimeMillis();
+        record(t, rssi, intervalMs, rssi != 0 ? info : null);
+        stats.onSample(t, rssi);
+        try { stats.saveIfDue(t); } catch (IOException ignored) {}
+        SAMPLE.since(t0);
+        return rssi;
+    }
 
-        synchronized (ring) {
-            ring.addLast(new Entry(System.currentTimeMillis(), rssi));
-            while (ring.size() > MAX_SAMPLES) ring.removeFirst();
+    /** Push into the ring buffer and persist with the ids of {@code info}'s network (none if null); sampler thread only. */
+    private void record(long t, int rssi, int intervalMs, WifiInfo info) {
+        if (info == null) { ssidId = bssidId = SsidDictionary.NONE; lastSsid = lastBssid = ""; }
+        else {
+            String s = info.getSSID(), b = info.getBSSID();
+            if (s != null && !s.equals(lastSsid)) { ssidId  = intern(ssidNames, ssidName(s)); lastSsid = s; }
+            if (b != null && !b.equals(lastBssid)) { bssidId = intern(bssidNames, NO_BSSID.equals(b) ? null : b); lastBssid = b; }
         }
+        ring.add(t, rssi, intervalMs, ssidId);
+        try { store.append(t, rssi, intervalMs, ssidId, bssidId); } catch (IOException ignored) {}
+    }
+
+    /** SSID as the event log names it: quotes stripped, null when hidden from us. */
+    private static String ssidName(String raw) {
+        if (raw.equals("<unknown ssid>")) return null;
+        return raw.length() > 1 && raw.startsWith("\"") && raw.endsWith("\"") ? raw.substring(1, raw.length() - 1) : raw;
+    }
+
+    private static int intern(SsidDictionary d, String name) {
+        try { return d.intern(name); } catch (IOException e) { return SsidDictionary.NONE; }
     }
 }
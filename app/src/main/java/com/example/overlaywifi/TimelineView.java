@@ -1,97 +1,295 @@
 package com.example.overlaywifi;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.AttributeSet;
+import android.util.LruCache;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.View;
+import android.widget.OverScroller;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
-import java.io.InputStreamReader;
-import java.text.SimpleDateFormat;
-import java.util.*;
+import java.io.File;
+import java.util.TimeZone;
 
 /**
  * A custom View that draws a timeline of Wi-Fi connectivity:
- *  • horizontal green/red bars for on/off periods
- *  • vertical markers labeled with SSID (or “NENÍ SIGNÁL”)
- *  • hourly tick marks on the time axis
- * Call refresh() to reload the CSV and redraw.
+ *  • horizontal green/red bars for on/off periods, amber where a pixel
+ *    column holds both states (flapping)
+ *  • vertical markers labeled with SSID, or with the flip count “N×” when flapping
+ *  • tick marks on the time axis, from minutes to days apart depending on zoom
+ * The live view follows the process-wide {@link EventStore}: the history comes
+ * from memory, loaded off the main thread, and each event the service commits
+ * is pushed in and drawn right away; the view never polls the log.
+ * {@link #loadRange} shows a fixed window instead, read by the store thread
+ * through the {@link EventIndex} so its cost does not depend on the history
+ * before it.
+ * Drawing goes through {@link TimelineLod}, so the number of draw calls is a
+ * handful per frame and the batched geometry is bounded by the view width.
+ * The view is only as wide as its parent: it scrolls and flings itself over a
+ * {@link TimelineViewport} and draws just the events inside the visible window,
+ * found by binary search, so cost does not grow with the length of history.
+ * Pinch or {@link #zoomBy} changes the viewport scale (minutes to two weeks
+ * across the screen) and re-lays out from memory; zooming never reads the log.
+ * History is painted in {@link #TILE_W}-pixel tiles aligned to an absolute
+ * pixel grid; tiles that end before the last event can no longer change and
+ * are kept as bitmaps in a memory-bounded LRU, so scrolling is mostly bitmap
+ * blits and only the live tail is repainted when events arrive.
  */
 public class TimelineView extends View {
     private static final int   COLOR_ON        = 0xFF00C853;
     private static final int   COLOR_OFF       = 0xFFD32F2F;
+    private static final int   COLOR_FLAP      = 0xFFFFAB00;
     private static final int   BG_COLOR        = 0xFF222222;
     private static final int   AXIS_COLOR      = 0xFF888888;
-    private static final long  HOUR_MS         = 3_600_000L;
-    private static final SimpleDateFormat TIME_FMT =
-            new SimpleDateFormat("HH:mm", Locale.getDefault());
+    private static final long  MINUTE_MS       = ClockFormat.MINUTE_MS;
+    private static final long  HOUR_MS         = ClockFormat.HOUR_MS;
+    private static final long  DAY_MS          = ClockFormat.DAY_MS;
+    // tick ladder; the finest step whose labels do not collide is used
+    private static final long[] TICK_STEPS     = {
+            MINUTE_MS, 5 * MINUTE_MS, 15 * MINUTE_MS, 30 * MINUTE_MS,
+            HOUR_MS, 3 * HOUR_MS, 6 * HOUR_MS, 12 * HOUR_MS,
+            DAY_MS, 2 * DAY_MS, 7 * DAY_MS };
+    private static final int   TILE_W          = 256;
 
-    private final Paint paintBar  = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private static final Metrics.Histogram LOAD_TIME  = Metrics.histogram("timeline.load");
+    private static final Metrics.Histogram DRAW_TIME  = Metrics.histogram("timeline.draw");
+    private static final Metrics.Histogram TILE_PAINT = Metrics.histogram("timeline.tile_paint");   // cache misses
+    private static final Metrics.Counter   TILE_HITS  = Metrics.counter("timeline.tile_hits");
+
+    // one paint per bar class so the draw loop never calls setColor
+    private final Paint paintOn   = new Paint();
+    private final Paint paintOff  = new Paint();
+    private final Paint paintFlap = new Paint();
     private final Paint paintLine = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint paintTick = new Paint(Paint.ANTI_ALIAS_FLAG);
     private final Paint paintText = new Paint(Paint.ANTI_ALIAS_FLAG);
 
-    private final List<Event> events = new ArrayList<>();
+    private final EventSeries     events = new EventSeries();
+    private final TimelineLod     lod    = new TimelineLod();
+    private final char[]          flapLabel = new char[12];
+    private float[]               ticks     = new float[0];
+    private final SsidDictionary ssids;
+    private final EventStore     store;
+    private final Handler        ui = new Handler(Looper.getMainLooper());
+    private EventStore.Subscription live;   // open while following the store or reading a range
+    private boolean        endOnLoad;       // scroll to the live end once the history arrives
+    private long           rangeFrom, rangeTo = Long.MAX_VALUE;   // MAX = live
 
-    // Holds one CSV record
-    private static class Event {
-        long timestamp;
-        boolean connected;
-        String ssid;
-        Event(long ts, boolean c, String s) {
-            timestamp = ts; connected = c; ssid = s;
-        }
+    private final ClockFormat     clock     = new ClockFormat(TimeZone.getDefault());
+    private final StringBuilder   tickText  = new StringBuilder(8);
+    private final char[]          tickChars = new char[8];
+
+    // settled history tiles keyed by index on the absolute pixel grid; drawn at tileScale
+    private final LruCache<Long, Bitmap> tiles =
+            new LruCache<Long, Bitmap>((int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16)) {
+                @Override protected int sizeOf(Long key, Bitmap b) { return b.getByteCount(); }
+            };
+    private Canvas       tileCanvas = new Canvas();
+    private double       tileScale;
+    private float        labelSpacing, tickSpacing;
+
+    private final TimelineViewport viewport = new TimelineViewport();
+    private final OverScroller     scroller;
+    private final GestureDetector  gestures;
+    private final ScaleGestureDetector pinch;
+    private OnViewportChangeListener viewportListener;
+
+    /** Notified whenever the visible time window moves. */
+    public interface OnViewportChangeListener {
+        void onViewportChanged(TimelineView v);
     }
 
     public TimelineView(Context ctx, AttributeSet attrs) {
         super(ctx, attrs);
+        paintOn.setColor(COLOR_ON);
+        paintOff.setColor(COLOR_OFF);
+        paintFlap.setColor(COLOR_FLAP);
+        for (Paint p : new Paint[]{paintOn, paintOff, paintFlap}) {
+            p.setStyle(Paint.Style.STROKE);
+            p.setStrokeCap(Paint.Cap.BUTT);
+        }
         paintLine.setColor(AXIS_COLOR);
         paintLine.setStrokeWidth(2f);
+        paintTick.setColor(AXIS_COLOR);
+        paintTick.setStrokeWidth(1f);
         paintText.setColor(Color.WHITE);
         paintText.setTextSize(32f);
-        loadEvents();
+        paintText.setTextAlign(Paint.Align.CENTER);
+        labelSpacing = paintText.measureText("NENÍ SIGNÁL") * 1.1f;
+        tickSpacing  = paintText.measureText("00.00.") * 1.5f;
+
+        scroller = new OverScroller(ctx);
+        gestures = new GestureDetector(ctx, new GestureDetector.SimpleOnGestureListener() {
+            @Override public boolean onDown(MotionEvent e) {
+                scroller.forceFinished(true);
+                return true;
+            }
+            @Override public boolean onScroll(MotionEvent e1, MotionEvent e2, float dx, float dy) {
+                if (viewport.scrollBy(dx)) viewportChanged();
+                return true;
+            }
+            @Override public boolean onFling(MotionEvent e1, MotionEvent e2, float vx, float vy) {
+                scroller.fling(viewport.scrollX(), 0, (int) -vx, 0, 0, viewport.scrollRange(), 0, 0);
+                postInvalidateOnAnimation();
+                return true;
+            }
+        });
+        pinch = new ScaleGestureDetector(ctx, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override public boolean onScale(ScaleGestureDetector d) {
+                zoomBy(d.getScaleFactor(), d.getFocusX());
+                return true;
+            }
+        });
+
+        File dir = ctx.getFilesDir();
+        ssids   = SsidDictionary.shared(new File(dir, OverlayService.SSID_FILE));
+        store   = OverlayService.eventStore(ctx);
+        follow();
     }
+
     @Override
-    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        loadEvents();  // ensure events & start/end are known
-
-        if (!events.isEmpty()) {
-            long start = (events.get(0).timestamp / HOUR_MS) * HOUR_MS;
-            long end   = ((events.get(events.size()-1).timestamp + HOUR_MS - 1)/HOUR_MS)*HOUR_MS;
-            // choose e.g. 200 px per hour
-            float pxPerMs = 200f / HOUR_MS;
-            int measuredW = Math.round((end - start) * pxPerMs);
-            setMeasuredDimension(measuredW, MeasureSpec.getSize(heightMeasureSpec));
-        } else {
-            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (live != null) return;
+        if (isLive()) follow();
+        else if (events.isEmpty()) fetchRange();   // detached before the range arrived
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (h != oldh) tiles.evictAll();
+        viewport.setWidth(w);
+        viewportChanged();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        unfollow();
+        tiles.evictAll();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent e) {
+        pinch.onTouchEvent(e);
+        if (pinch.isInProgress()) return true;
+        return gestures.onTouchEvent(e) || super.onTouchEvent(e);
+    }
+
+    @Override
+    public void computeScroll() {
+        if (scroller.computeScrollOffset()) {
+            viewport.setScrollX(scroller.getCurrX());
+            viewportChanged();
         }
     }
 
-    /** Load events from internal CSV */
-    private void loadEvents() {
+    public void setOnViewportChangeListener(OnViewportChangeListener l) { viewportListener = l; }
+
+    /** Paint cache tiles through {@code c}; lets the render harness count what goes into them. */
+    void setTileCanvas(Canvas c) { tileCanvas = c; }
+
+    /** Jump back to the live end of the history. */
+    public void scrollToEnd() {
+        scroller.forceFinished(true);
+        viewport.scrollToEnd();
+        viewportChanged();
+    }
+
+    /**
+     * Zoom around view x {@code focusX}; {@code factor} > 1 zooms in. Works on the
+     * events already loaded, so it is cheap enough to call on every gesture step.
+     */
+    public void zoomBy(float factor, float focusX) {
+        scroller.forceFinished(true);
+        if (viewport.zoom(factor, focusX)) viewportChanged();
+    }
+
+    private void viewportChanged() {
+        postInvalidateOnAnimation();
+        if (viewportListener != null) viewportListener.onViewportChanged(this);
+    }
+
+    /**
+     * Show only [from, to), read off the main thread via the sparse index, and stop
+     * following the live log until {@link #showLive()}.
+     */
+    public void loadRange(long from, long to) {
+        unfollow();
+        rangeFrom = from;
+        rangeTo   = to;
+        endOnLoad = false;
         events.clear();
-        try (FileInputStream fis = getContext()
-                .openFileInput(OverlayService.EVENT_FILE);
-             BufferedReader br = new BufferedReader(new InputStreamReader(fis))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",", 3);
-                if (p.length < 3) continue;
-                long ts    = Long.parseLong(p[0]);
-                boolean c  = Float.parseFloat(p[1]) == 1f;
-                String ss  = p[2];
-                events.add(new Event(ts, c, ss));
-            }
-        } catch (Exception ignored) {}
-        Collections.sort(events, Comparator.comparingLong(e -> e.timestamp));
+        tiles.evictAll();
+        fetchRange();
+        updateExtent();
+        viewport.show(from, to);
+        viewportChanged();
     }
 
-    /** Public: reload CSV and redraw */
-    public void refresh() {
-        loadEvents();
-        invalidate();
+    /** Back to the live view following the end of the log. */
+    public void showLive() {
+        rangeTo   = Long.MAX_VALUE;
+        endOnLoad = true;
+        follow();
+    }
+
+    public boolean isLive() { return rangeTo == Long.MAX_VALUE; }
+
+    /** Data extent rounded out to whole hours, as the axis shows it; the picked window when not live. */
+    private void updateExtent() {
+        if (!isLive()) {
+            viewport.setData(rangeFrom, rangeTo);
+            return;
+        }
+        if (events.isEmpty()) return;
+        long start = (events.first() / HOUR_MS) * HOUR_MS;
+        long end   = ((events.last() + HOUR_MS - 1) / HOUR_MS) * HOUR_MS;
+        viewport.setData(start, Math.max(end, start + HOUR_MS));
+    }
+
+    /** Subscribe to the store; its first delivery replaces whatever is shown. */
+    private void follow() {
+        unfollow();
+        live = store.subscribe(this::onEvents, ui::post);
+    }
+
+    private void fetchRange() {
+        live = store.read(rangeFrom, rangeTo, this::onEvents, ui::post);
+    }
+
+    private void unfollow() {
+        if (live != null) { live.close(); live = null; }
+    }
+
+    /** Store push on the main looper: the whole history (sorted) or a range first, then each committed event. */
+    private void onEvents(EventSeries s, boolean full) {
+        long t0 = System.nanoTime();
+        if (full) {
+            events.clear();
+            tiles.evictAll();
+            for (int i = 0; i < s.size(); i++) events.add(s.time(i), s.connected(i), s.ssid(i));
+        } else {
+            for (int i = 0; i < s.size(); i++) addEvent(s.time(i), s.connected(i), s.ssid(i));
+            events.sort();
+        }
+        LOAD_TIME.since(t0);
+        updateExtent();
+        if (full && endOnLoad) { endOnLoad = false; scrollToEnd(); }
+        else viewportChanged();
+    }
+
+    private void addEvent(long ts, boolean connected, int ssidId) {
+        if (!events.isEmpty() && ts < events.last()) tiles.evictAll();   // clock jump rewrote history
+        events.add(ts, connected, ssidId);
     }
 
     @Override
@@ -99,79 +297,154 @@ public class TimelineView extends View {
         super.onDraw(c);
         if (events.isEmpty()) return;
 
+        long t0 = System.nanoTime();
         int w = getWidth(), h = getHeight();
         // fill background
         c.drawColor(BG_COLOR);
 
+        // while the scale keeps changing (pinch in progress) draw directly instead of filling the cache
+        double scale = viewport.pxPerMs();
+        boolean steady = scale == tileScale;
+        if (!steady) {
+            tiles.evictAll();
+            tileScale = scale;
+        }
+        // a tile is settled once its padded extent lies before the last event
+        double settled = events.last() * scale - labelPad() - 1;
+        double left = viewport.originPx();
+        for (long i = (long) Math.floor(left / TILE_W); i * (double) TILE_W < left + w; i++) {
+            double px0 = i * (double) TILE_W;
+            float x = (float) (px0 - left);
+            if (steady && px0 + TILE_W < settled) {
+                c.drawBitmap(tile(i, h), x, 0, null);
+            } else {
+                c.save();
+                c.clipRect(x, 0, x + TILE_W, h);
+                c.translate(x, 0);
+                drawRange(c, px0, TILE_W, h);
+                c.restore();
+            }
+        }
+        DRAW_TIME.since(t0);
+    }
+
+    private Bitmap tile(long i, int h) {
+        Bitmap b = tiles.get(i);
+        if (b != null) { TILE_HITS.inc(); return b; }
+        long t0 = System.nanoTime();
+        b = Bitmap.createBitmap(TILE_W, h, Bitmap.Config.ARGB_8888);
+        tileCanvas.setBitmap(b);
+        drawRange(tileCanvas, i * (double) TILE_W, TILE_W, h);
+        tileCanvas.setBitmap(null);
+        tiles.put(i, b);
+        TILE_PAINT.since(t0);
+        return b;
+    }
+
+    /** Room around a tile for labels straddling its edges and for the label spacing look-back. */
+    private int labelPad() { return (int) Math.ceil(labelSpacing); }
+
+    /**
+     * Draw absolute pixels {@code [px0, px0 + w)} of the timeline at x = 0..w.
+     * The result depends only on the events, scale and px0, so neighbouring
+     * tiles join seamlessly: a marker is labelled when no other marker lies
+     * within {@link #labelSpacing} to its left, which needs a bounded look-back
+     * instead of a greedy pass from the start of the view.
+     */
+    private void drawRange(Canvas c, double px0, int w, int h) {
+        c.drawColor(BG_COLOR);
+
         int barTop    = h / 3;
         int barBottom = h * 2 / 3;
+        int pad       = labelPad();
 
-        // determine time range, rounded to hours
-        long start = (events.get(0).timestamp / HOUR_MS) * HOUR_MS;
-        long end   = ((events.get(events.size()-1).timestamp + HOUR_MS - 1)
-                / HOUR_MS) * HOUR_MS;
-
-        float pxPerMs = (float) w / (end - start);
-
-        // draw on/off segments
-        for (int i = 0; i < events.size(); i++) {
-            Event e = events.get(i);
-            long segStart = e.timestamp;
-            long segEnd   = (i+1 < events.size()
-                    ? events.get(i+1).timestamp
-                    : end);
-            float x1 = (segStart - start) * pxPerMs;
-            float x2 = (segEnd   - start) * pxPerMs;
-            paintBar.setColor(e.connected ? COLOR_ON : COLOR_OFF);
-            c.drawRect(x1, barTop, x2, barBottom, paintBar);
-        }
+        // padded window; the segment covering its left edge starts one event earlier
+        double scale = viewport.pxPerMs();
+        long start   = (long) Math.floor((px0 - 2 * pad) / scale);
+        long end     = (long) Math.ceil((px0 + w + pad) / scale);
+        long dataEnd = ((events.last() + HOUR_MS - 1) / HOUR_MS) * HOUR_MS;
+        int from = Math.max(0, events.lowerBound(start) - 1);
+        int to   = events.lowerBound(end + 1);
+        float pxPerMs = (float) scale;
+        float dx = (float) (start * scale - px0);
 
-        // vertical markers + SSID labels, throttled to avoid overlap
-        float lastLabelX = -Float.MAX_VALUE;
-        float minLabelSpacing = paintText.measureText("NENÍ SIGNÁL") * 1.1f;
-        paintText.setTextAlign(Paint.Align.CENTER);
+        // on/off/flapping runs: one batched drawLines per colour
+        lod.build(events, from, to, start, dataEnd, pxPerMs, w + 3 * pad, (barTop + barBottom) / 2f, barTop, barBottom);
+        float barH = barBottom - barTop;
+        paintOn.setStrokeWidth(barH);
+        paintOff.setStrokeWidth(barH);
+        paintFlap.setStrokeWidth(barH);
+        c.save();
+        c.translate(dx, 0);
+        c.drawLines(lod.lines(TimelineLod.ON),    0, lod.lineCount(TimelineLod.ON),    paintOn);
+        c.drawLines(lod.lines(TimelineLod.OFF),   0, lod.lineCount(TimelineLod.OFF),   paintOff);
+        c.drawLines(lod.lines(TimelineLod.MIXED), 0, lod.lineCount(TimelineLod.MIXED), paintFlap);
 
-        for (Event e : events) {
-            float x = (e.timestamp - start) * pxPerMs;
-            // line
-            paintLine.setStrokeWidth(2f);
-            c.drawLine(x, barTop, x, barBottom, paintLine);
-            // label if space permits
-            if (x - lastLabelX >= minLabelSpacing) {
-                c.drawText(e.ssid, x, barTop - 16f, paintText);
-                lastLabelX = x;
+        // vertical markers (≤ one per pixel column) in one call
+        c.drawLines(lod.markerLines(), 0, lod.markerCount() * 4, paintLine);
+
+        // SSID / flap-count labels, spaced so they do not overlap
+        for (int m = 0; m < lod.markerCount(); m++) {
+            float x = lod.markerX(m);
+            if (m > 0 && x - lod.markerX(m - 1) < labelSpacing) continue;
+            if (x + dx < -pad || x + dx > w + pad) continue;
+            int flaps = lod.markerFlaps(m);
+            if (flaps > 1) {
+                int len = formatFlaps(flaps);
+                c.drawText(flapLabel, 0, len, x, barTop - 16f, paintText);
+            } else {
+                c.drawText(ssids.name(events.ssid(lod.markerEvent(m))), x, barTop - 16f, paintText);
             }
         }
+        c.restore();
 
-        // hourly tick marks
-        paintLine.setStrokeWidth(1f);
-        for (long t = start; t <= end; t += HOUR_MS) {
-            float x = (t - start) * pxPerMs;
-            c.drawLine(x, barBottom, x, barBottom + 8f, paintLine);
-            String lbl = TIME_FMT.format(new Date(t));
-            c.drawText(lbl, x, barBottom + 32f, paintText);
+        // ticks on the local wall clock, with labels reaching into the range
+        long step  = tickStep(scale);
+        long first = Math.floorDiv(clock.local((long) Math.floor((px0 - pad) / scale)), step) * step;
+        int nTicks = (int) ((end - clock.instant(first)) / step) + 2;
+        if (ticks.length < nTicks * 4) ticks = new float[nTicks * 4];
+        int k = 0;
+        for (long l = first; clock.instant(l) <= end; l += step) {
+            float x = (float) (clock.instant(l) * scale - px0);
+            ticks[k++] = x; ticks[k++] = barBottom; ticks[k++] = x; ticks[k++] = barBottom + 8f;
         }
+        c.drawLines(ticks, 0, k, paintTick);
+        for (long l = first; clock.instant(l) <= end; l += step) {
+            long t = clock.instant(l);
+            tickText.setLength(0);
+            if (step >= DAY_MS || Math.floorMod(l, DAY_MS) == 0) clock.appendDayMonth(tickText, t);
+            else clock.appendHourMinute(tickText, t);
+            tickText.getChars(0, tickText.length(), tickChars, 0);
+            c.drawText(tickChars, 0, tickText.length(), (float) (t * scale - px0), barBottom + 32f, paintText);
+        }
+    }
+
+    /** Finest step of {@link #TICK_STEPS} leaving room for a label between ticks. */
+    private long tickStep(double scale) {
+        for (long step : TICK_STEPS) if (step * scale >= tickSpacing) return step;
+        return TICK_STEPS[TICK_STEPS.length - 1];
+    }
+
+    /** Writes "N×" into {@link #flapLabel}; returns its length. */
+    private int formatFlaps(int n) {
+        int i = flapLabel.length;
+        flapLabel[--i] = '×';
+        do { flapLabel[--i] = (char) ('0' + n % 10); n /= 10; } while (n > 0);
+        int len = flapLabel.length - i;
+        System.arraycopy(flapLabel, i, flapLabel, 0, len);
+        return len;
     }
+
+    /** Time under view-relative x (same mapping as onDraw). */
     public long getTimestampForX(float x) {
         if (events.isEmpty()) return -1L;
-        // calculate the same start/end and pxPerMs as in onDraw:
-        long start = (events.get(0).timestamp / HOUR_MS) * HOUR_MS;
-        long end   = ((events.get(events.size()-1).timestamp + HOUR_MS - 1) / HOUR_MS) * HOUR_MS;
-        float pxPerMs = (float) getWidth() / (end - start);
-        return start + (long) (x / pxPerMs);
+        return viewport.timeAt(x);
     }
 
-    /** Returns the SSID (or “NENÍ SIGNÁL”) at or before the given timestamp */
+    /** Returns the SSID (or “NENÍ SIGNÁL”) at or before the given timestamp; O(log n), no allocation */
     public String getSsidAtTime(long timestamp) {
-        String label = "NENÍ SIGNÁL";
-        for (Event e : events) {
-            if (e.timestamp <= timestamp) {
-                label = e.connected ? e.ssid : "NENÍ SIGNÁL";
-            } else {
-                break;
-            }
-        }
-        return label;
+        int i = events.indexAt(timestamp);
+        return i >= 0 && events.connected(i) ? ssids.name(events.ssid(i)) : "NENÍ SIGNÁL";
     }
 
     }
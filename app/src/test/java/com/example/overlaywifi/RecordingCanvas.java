@@ -0,0 +1,38 @@
+package com.example.overlaywifi;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * Canvas that counts draw calls instead of rasterizing them. State calls
+ * (save, translate, clip, setBitmap) still go to the real canvas so the view
+ * under test behaves as usual; everything that would put pixels down is
+ * only recorded. {@link #lineFloats} and {@link #glyphs} show how much
+ * geometry and text the calls carried.
+ */
+final class RecordingCanvas extends Canvas {
+
+    int  ops;           // draw calls
+    long lineFloats;    // floats handed to drawLines
+    long glyphs;        // characters handed to drawText
+
+    void reset() { ops = 0; lineFloats = 0; glyphs = 0; }
+
+    @Override public void drawColor(int color) { ops++; }
+    @Override public void drawBitmap(Bitmap b, float left, float top, Paint p) { ops++; }
+    @Override public void drawRect(float l, float t, float r, float b, Paint p) { ops++; }
+    @Override public void drawRect(RectF r, Paint p) { ops++; }
+    @Override public void drawPath(Path path, Paint p) { ops++; }
+
+    @Override public void drawLine(float x1, float y1, float x2, float y2, Paint p) { ops++; lineFloats += 4; }
+    @Override public void drawLines(float[] pts, Paint p) { ops++; lineFloats += pts.length; }
+    @Override public void drawLines(float[] pts, int off, int count, Paint p) { ops++; lineFloats += count; }
+
+    @Override public void drawText(String s, float x, float y, Paint p) { ops++; glyphs += s.length(); }
+    @Override public void drawText(String s, int start, int end, float x, float y, Paint p) { ops++; glyphs += end - start; }
+    @Override public void drawText(char[] s, int off, int len, float x, float y, Paint p) { ops++; glyphs += len; }
+    @Override public void drawText(CharSequence s, int start, int end, float x, float y, Paint p) { ops++; glyphs += end - start; }
+}
@@ -0,0 +1,68 @@
+package com.example.overlaywifi;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.SplittableRandom;
+
+/**
+ * Generated connection histories for the render harness, written as the
+ * service would leave them: an {@link EventLog} with its {@link EventIndex}
+ * sidecar plus SSID names in the shared {@link SsidDictionary}.
+ *
+ * States alternate. After each event the link either stays put for an
+ * exponential time (mean {@link #MEAN_GAP_MS}) or, with probability
+ * {@code flapDensity}, flips again within {@link #FLAP_GAP_MS}. Same seed,
+ * same history – so draw-op counts are reproducible.
+ */
+final class SyntheticHistory {
+
+    static final long MEAN_GAP_MS = 5 * 60_000L;
+    static final long FLAP_GAP_MS = 20_000L;
+    static final int  NETWORKS    = 6;
+
+    private SyntheticHistory() {}
+
+    /** Write {@code events} records ending at {@code end} into the service's files in {@code dir}. */
+    static void write(File dir, int events, double flapDensity, long end, long seed) throws IOException {
+        SsidDictionary names = SsidDictionary.shared(new File(dir, OverlayService.SSID_FILE));
+        int[] ids = new int[NETWORKS];
+        for (int i = 0; i < NETWORKS; i++) ids[i] = names.intern("net-" + (i + 1));
+
+        SplittableRandom rnd = new SplittableRandom(seed);
+        long[] gaps = new long[events];
+        long span = 0;
+        for (int i = 0; i < events; i++) {
+            gaps[i] = rnd.nextDouble() < flapDensity
+                    ? 1_000 + rnd.nextLong(FLAP_GAP_MS)
+                    : 1_000 + (long) (-Math.log(1 - rnd.nextDouble()) * MEAN_GAP_MS);
+            span += gaps[i];
+        }
+
+        File log = new File(dir, OverlayService.EVENT_FILE);
+        ByteBuffer buf = ByteBuffer.allocate(4096 * EventLog.RECORD_SIZE);
+        try (FileOutputStream out = new FileOutputStream(log); FileChannel ch = out.getChannel()) {
+            long t = end - span;
+            boolean up = true;
+            int ssid = ids[0];
+            EventLog.putHeader(buf, t);
+            for (int i = 0; i < events; i++) {
+                if (up && rnd.nextInt(4) == 0) ssid = ids[rnd.nextInt(NETWORKS)];
+                EventLog.putRecord(buf, t, up, up ? ssid : SsidDictionary.NONE, 0);
+                if (!buf.hasRemaining()) drain(buf, ch);
+                t += gaps[i];
+                up = !up;
+            }
+            drain(buf, ch);
+        }
+        EventIndex.rebuild(log);
+    }
+
+    private static void drain(ByteBuffer buf, FileChannel ch) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.overlaywifi;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.ParameterizedRobolectricTestRunner.Parameters;
+import org.robolectric.Robolectric;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TimeZone;
+import java.util.TreeSet;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Render-path harness for {@link TimelineView}: builds the view over generated
+ * histories ({@link SyntheticHistory}) of growing size and flap density, shows
+ * it in an activity and measures four frames per history –
+ *   measure  measure() + layout() at a fixed size
+ *   cold     onDraw after the view was detached and re-attached (tiles painted)
+ *   warm     onDraw with every settled tile cached
+ *   zoom     onDraw right after a zoom step (direct drawing, no cache)
+ * For each it records draw calls (screen and tile canvases, see
+ * {@link RecordingCanvas}), bytes allocated on the drawing thread and wall time.
+ *
+ * Ops and bytes are compared with {@code timeline_render_baseline.properties}; a
+ * frame that needs more than the baseline plus its tolerance fails the build.
+ * Wall time depends on the machine, so it is only reported. Histories without
+ * baseline entries are only reported. Each history is generated once per run
+ * and copied into the files dir of every test that uses it. To accept
+ * new numbers, run on the reference machine with
+ *   ./gradlew :app:testDebugUnitTest --tests '*TimelineRenderTest' -Ptimeline.render.update
+ * which rewrites the baseline file in place.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+public class TimelineRenderTest {
+
+    private static final int    WIDTH   = 1080, HEIGHT = 400;
+    private static final int    WARMUP  = 5, RUNS = 15;
+    private static final long   END     = 1_750_000_000_000L;     // fixed, so tick layout is reproducible
+    private static final String BASELINE = "timeline_render_baseline.properties";
+
+    // allowed growth over the baseline: ops are exact, bytes are noisy
+    private static final double OPS_SLACK   = 1.10;
+    private static final double BYTES_SLACK = 1.25;
+    private static final long   BYTES_FLOOR = 16 * 1024;
+
+    private static final String[] FRAMES = {"measure", "cold", "warm", "zoom"};
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> histories() {
+        return Arrays.asList(new Object[][]{
+                {"calm_1k",     1_000,     0.02},
+                {"flappy_1k",   1_000,     0.30},
+                {"calm_100k",   100_000,   0.02},
+                {"flappy_100k", 100_000,   0.30},
+                {"calm_1m",     1_000_000, 0.02},
+                {"flappy_1m",   1_000_000, 0.30},
+        });
+    }
+
+    // generated histories by name, each in its own temp dir
+    private static final Map<String, File> HISTORIES = new HashMap<>();
+
+    private final String name;
+    private final int    events;
+    private final double flapDensity;
+
+    private TimeZone     zone;
+    private Activity     activity;
+    private EventStore   store;
+    private TimelineView view;
+    private final RecordingCanvas screen = new RecordingCanvas();
+    private final RecordingCanvas tiles  = new RecordingCanvas();
+
+    public TimelineRenderTest(String name, int events, double flapDensity) {
+        this.name        = name;
+        this.events      = events;
+        this.flapDensity = flapDensity;
+    }
+
+    @Before
+    public void setUp() throws IOException, InterruptedException {
+        zone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        activity = Robolectric.buildActivity(Activity.class).setup().get();
+        Context ctx = activity.getApplicationContext();
+        for (File f : history().listFiles()) {
+            Files.copy(f.toPath(), new File(ctx.getFilesDir(), f.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        store = OverlayService.eventStore(ctx);
+        view  = new TimelineView(activity, null);
+        view.setTileCanvas(tiles);
+        attach();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(zone);
+    }
+
+    /** This parameter set's history, written on first use. */
+    private File history() throws IOException {
+        synchronized (HISTORIES) {
+            File dir = HISTORIES.get(name);
+            if (dir == null) {
+                dir = Files.createTempDirectory("timeline-" + name).toFile();
+                dir.deleteOnExit();
+                SyntheticHistory.write(dir, events, flapDensity, END, 42);
+                for (File f : dir.listFiles()) f.deleteOnExit();
+                HISTORIES.put(name, dir);
+            }
+            return dir;
+        }
+    }
+
+    /** Show the view in the activity and wait for the history to reach it. */
+    private void attach() {
+        activity.setContentView(view, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+        try {
+            store.awaitIdle();                          // history is loaded off the main thread…
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+        ShadowLooper.idleMainLooper();                  // …and pushed to the view through it
+    }
+
+    /** Take the view out of the window and put it back: drops the tile cache and re-follows the store. */
+    private void reattach() {
+        activity.setContentView(new View(activity));
+        attach();
+    }
+
+    @Test
+    public void renderCostWithinBaseline() throws IOException {
+        long[][] m = new long[FRAMES.length][];
+        m[0] = measure(this::layout);
+        m[1] = measure(this::reattach, this::draw);
+        m[2] = measure(this::draw);
+        m[3] = measure(() -> { view.zoomBy(2f, WIDTH / 2f); draw(); view.zoomBy(0.5f, WIDTH / 2f); }, this::draw);
+
+        Properties base = loadBaseline();
+        List<String> failures = new ArrayList<>();
+        StringBuilder report = new StringBuilder(name).append(" (").append(events).append(" events)\n");
+        for (int f = 0; f < FRAMES.length; f++) {
+            String key = name + "." + FRAMES[f];
+            report.append(String.format("  %-8s %6d ops %10d B %8d us%n", FRAMES[f], m[f][0], m[f][1], m[f][2]));
+            check(failures, base, key + ".ops",   m[f][0], OPS_SLACK,   0);
+            check(failures, base, key + ".bytes", m[f][1], BYTES_SLACK, BYTES_FLOOR);
+        }
+        System.out.print(report);
+
+        if (Boolean.getBoolean("timeline.render.update")) {
+            for (int f = 0; f < FRAMES.length; f++) {
+                String key = name + "." + FRAMES[f];
+                base.setProperty(key + ".ops",   Long.toString(m[f][0]));
+                base.setProperty(key + ".bytes", Long.toString(m[f][1]));
+            }
+            storeBaseline(base);
+            return;
+        }
+        if (!failures.isEmpty()) fail("Render cost regressed for " + name + ":\n  " + String.join("\n  ", failures));
+    }
+
+    /* ---------- measuring ---------- */
+
+    /** Same as {@link #measure(Runnable, Runnable)} with nothing to prepare between runs. */
+    private long[] measure(Runnable frame) {
+        return measure(() -> {}, frame);
+    }
+
+    /**
+     * Run {@code prepare} then {@code frame} {@link #WARMUP} + {@link #RUNS} times, timing only the frame.
+     * @return {ops of the last run, fewest bytes allocated, median µs}
+     */
+    private long[] measure(Runnable prepare, Runnable frame) {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        long[] us = new long[RUNS];
+        long bytes = Long.MAX_VALUE;
+        for (int r = -WARMUP; r < RUNS; r++) {
+            prepare.run();
+            screen.reset();
+            tiles.reset();
+            long a0 = mx.getThreadAllocatedBytes(tid);
+            long t0 = System.nanoTime();
+            frame.run();
+            long t1 = System.nanoTime();
+            long a1 = mx.getThreadAllocatedBytes(tid);
+            if (r < 0) continue;
+            us[r] = (t1 - t0) / 1_000;
+            bytes = Math.min(bytes, a1 - a0);
+        }
+        Arrays.sort(us);
+        return new long[]{screen.ops + tiles.ops, bytes, us[RUNS / 2]};
+    }
+
+    private void layout() {
+        view.forceLayout();
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                     View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private void draw() { view.draw(screen); }
+
+    /* ---------- baseline ---------- */
+
+    private static void check(List<String> failures, Properties base, String key, long value, double slack, long floor) {
+        String b = base.getProperty(key);
+        if (b == null) return;
+        long limit = (long) (Long.parseLong(b) * slack) + floor;
+        if (value > limit) failures.add(key + " = " + value + ", baseline " + b + ", limit " + limit);
+    }
+
+    /** The source copy when Gradle passes its path (so updates from earlier histories are kept), else the classpath one. */
+    private Properties loadBaseline() throws IOException {
+        Properties p = new Properties();
+        String path = System.getProperty("timeline.render.baseline");
+        try (InputStream in = path != null && new File(path).exists()
+                ? new FileInputStream(path)
+                : getClass().getClassLoader().getResourceAsStream(BASELINE)) {
+            if (in != null) p.load(in);
+        }
+        return p;
+    }
+
+    /** Rewrite the source copy of the baseline (path passed in by Gradle), keys sorted. */
+    private static void storeBaseline(Properties p) throws IOException {
+        String path = System.getProperty("timeline.render.baseline");
+        if (path == null) throw new IOException("timeline.render.baseline not set");
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(new File(path)), StandardCharsets.UTF_8)) {
+            w.write("# TimelineView render baseline, checked by TimelineRenderTest.\n");
+            w.write("# <history>.<frame>.ops | .bytes - regenerate with -Ptimeline.render.update\n");
+            for (String k : new TreeSet<>(p.stringPropertyNames())) w.write(k + "=" + p.getProperty(k) + "\n");
+        }
+    }
+}
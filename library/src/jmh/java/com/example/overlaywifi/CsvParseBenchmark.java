@@ -0,0 +1,78 @@
+package com.example.overlaywifi;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Legacy CSV decoding as the one-time migration runs it: {@link EventCsvParser}
+ * over an in-memory file, so the figure is the parser's and not the disk's.
+ * The {@code lines} counter gives lines per second; {@code garbled} mixes in
+ * the damaged lines the parser has to skip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CsvParseBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int lines;
+
+    @Param({"false", "true"})
+    public boolean garbled;
+
+    private byte[] csv;
+
+    /** Lines decoded; JMH reports them per second. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Parsed {
+        public long lines;
+
+        @Setup(Level.Iteration)
+        public void reset() { lines = 0; }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(lines * 32);
+        StringBuilder sb = new StringBuilder();
+        Synthetic g = new Synthetic(42);
+        for (int i = 0; i < lines; i++) {
+            g.next();
+            sb.setLength(0);
+            if (garbled && i % 16 == 0) sb.append("garbage,").append(i).append('\n');
+            sb.append(g.time).append(',').append(g.connected ? 1 : 0).append(',')
+              .append(g.connected ? "net-" + g.ssid : "-").append('\n');
+            byte[] b = sb.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(b, 0, b.length);
+        }
+        csv = out.toByteArray();
+    }
+
+    /** Whole file decoded into the parser's primitive fields, nothing kept. */
+    @Benchmark
+    public long parse(Parsed n, Blackhole bh) throws IOException {
+        EventCsvParser p = new EventCsvParser(new ByteArrayInputStream(csv));
+        while (p.next()) {
+            bh.consume(p.timestamp);
+            bh.consume(p.ssidLen);
+            n.lines++;
+        }
+        return p.malformed();
+    }
+}
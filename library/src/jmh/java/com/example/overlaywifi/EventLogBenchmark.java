@@ -0,0 +1,91 @@
+package com.example.overlaywifi;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event log parsing: the full reload {@code TimelineView} does on first show,
+ * the idle tail poll of its refresh, and a one-day range read via the index.
+ * Time is per whole read; the {@code events} counter gives the time per record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventLogBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int events;
+
+    private File dir, log;
+    private long lastDay;
+    private final EventLog.Cursor tail = new EventLog.Cursor();
+
+    /** Records decoded; JMH also reports the time per record. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Decoded {
+        public long events;
+
+        @Setup(Level.Iteration)
+        public void reset() { events = 0; }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("eventlog-bench").toFile();
+        log = Synthetic.log(dir, events, 42);
+        Synthetic g = new Synthetic(42);
+        for (int i = 0; i < events; i++) g.next();
+        lastDay = g.time - ClockFormat.DAY_MS;
+        EventLog.readTail(log, tail, (t, c, id) -> {});
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() { Synthetic.delete(dir); }
+
+    /** Codec only: every record decoded and validated, nothing kept. */
+    @Benchmark
+    public int decode(Decoded n, Blackhole bh) throws IOException {
+        int read = EventLog.read(log, (t, c, id) -> { bh.consume(t); bh.consume(id); });
+        n.events += read;
+        return read;
+    }
+
+    /** Full reload into a fresh {@link EventSeries}, as on first show or after rotation. */
+    @Benchmark
+    public EventSeries load(Decoded n) throws IOException {
+        EventSeries s = new EventSeries();
+        n.events += EventLog.read(log, s::add);
+        s.sort();
+        return s;
+    }
+
+    /** Refresh with nothing appended: header check only, whatever the log size. */
+    @Benchmark
+    public int pollTail() throws IOException {
+        return EventLog.readTail(log, tail, (t, c, id) -> {});
+    }
+
+    /** Last 24 h of the log, seeking through the sidecar index. */
+    @Benchmark
+    public EventSeries readLastDay(Decoded n) throws IOException {
+        EventSeries s = new EventSeries();
+        n.events += EventLog.readRange(log, lastDay, Long.MAX_VALUE, s::add);
+        return s;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.overlaywifi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame layout of the timeline, i.e. everything {@code TimelineView.drawRange}
+ * computes before touching the canvas: the padded time window from the
+ * {@link TimelineViewport}, the visible slice of the {@link EventSeries} and the
+ * {@link TimelineLod} reduction to pixel columns. Measured at the live end for
+ * spans from an hour to the two-week zoom limit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LayoutBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int events;
+
+    /** Visible span in ms: hour, day, two weeks. */
+    @Param({"3600000", "86400000", "1209600000"})
+    public long span;
+
+    private static final int WIDTH = 1080, HEIGHT = 240, PAD = 48;
+
+    private EventSeries      series;
+    private TimelineViewport viewport;
+    private final TimelineLod lod = new TimelineLod();
+    private long             dataEnd;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        series   = Synthetic.series(events, 42);
+        dataEnd  = ((series.last() + 3_600_000L - 1) / 3_600_000L) * 3_600_000L;
+        viewport = new TimelineViewport();
+        viewport.setWidth(WIDTH);
+        viewport.setData(series.first(), dataEnd);
+        viewport.show(dataEnd - span, dataEnd);
+        frame();        // size the reusable buffers
+    }
+
+    @Benchmark
+    public int frame() {
+        double scale = viewport.pxPerMs(), px0 = viewport.originPx();
+        long start = (long) Math.floor((px0 - 2 * PAD) / scale);
+        long end   = (long) Math.ceil((px0 + WIDTH + PAD) / scale);
+        int from = Math.max(0, series.lowerBound(start) - 1);
+        int to   = series.lowerBound(end + 1);
+        lod.build(series, from, to, start, dataEnd, (float) scale, WIDTH + 3 * PAD,
+                  HEIGHT / 2f, HEIGHT / 3f, HEIGHT * 2 / 3f);
+        return lod.lineCount(TimelineLod.ON) + lod.lineCount(TimelineLod.OFF) + lod.markerCount();
+    }
+}
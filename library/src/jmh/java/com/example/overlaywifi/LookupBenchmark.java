@@ -0,0 +1,89 @@
+package com.example.overlaywifi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the timeline's touch path: x → time on the {@link TimelineViewport},
+ * then the SSID at that time ({@code TimelineView.getSsidAtTime}) through
+ * {@link EventSeries#indexAt} and the {@link SsidDictionary}. Probe times of
+ * the plain lookups are spread over the whole history so the binary search
+ * does not stay in cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LookupBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int events;
+
+    private static final int PROBES = 4096;      // power of two
+
+    private File             dir;
+    private EventSeries      series;
+    private SsidDictionary   ssids;
+    private TimelineViewport viewport;
+    private long[]           times;
+    private float[]          xs;
+    private int              next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir    = Files.createTempDirectory("lookup-bench").toFile();
+        series = Synthetic.series(events, 42);
+        ssids  = Synthetic.dictionary(dir);
+        viewport = new TimelineViewport();
+        viewport.setWidth(1080);
+        viewport.setData(series.first(), series.last());
+        viewport.show(series.last() - ClockFormat.DAY_MS, series.last());
+
+        SplittableRandom rnd = new SplittableRandom(7);
+        times = new long[PROBES];
+        xs    = new float[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            times[i] = rnd.nextLong(series.first(), series.last());
+            xs[i]    = rnd.nextInt(1080);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() { Synthetic.delete(dir); }
+
+    /** Interval search only. */
+    @Benchmark
+    public int indexAt() {
+        return series.indexAt(times[next++ & (PROBES - 1)]);
+    }
+
+    /** Same as {@code TimelineView.getSsidAtTime}. */
+    @Benchmark
+    public String ssidAtTime() {
+        return ssidAt(times[next++ & (PROBES - 1)]);
+    }
+
+    /** Touch at x on a day-wide window at the live end: {@code getTimestampForX}, then {@code getSsidAtTime}. */
+    @Benchmark
+    public String touch() {
+        return ssidAt(viewport.timeAt(xs[next++ & (PROBES - 1)]));
+    }
+
+    private String ssidAt(long t) {
+        int i = series.indexAt(t);
+        return i >= 0 && series.connected(i) ? ssids.name(series.ssid(i)) : "NENÍ SIGNÁL";
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.overlaywifi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RssiRing} snapshot cost for the graph: copying the last hour out,
+ * walking a pinned {@link RssiRing.View}, and the writer's per-sample add.
+ * The ring is full, so every read crosses the wrap-around.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RssiRingBenchmark {
+
+    /** Window in samples: an hour and a day at 1 Hz. */
+    @Param({"3600", "86400"})
+    public int window;
+
+    private RssiRing      ring;
+    private RssiRing.View view;
+    private long          now;
+    private long[]        outT;
+    private byte[]        outRssi;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ring = new RssiRing(window);
+        for (int i = 0; i < window + window / 3; i++) add();
+        view    = ring.view();
+        outT    = new long[3600];
+        outRssi = new byte[3600];
+    }
+
+    /** Samples of the last hour into preallocated arrays. */
+    @Benchmark
+    public int copyLastHour() {
+        return ring.copy(Synthetic.T0 + now - 3_600_000L, Long.MAX_VALUE, outT, outRssi);
+    }
+
+    /** Pin the ring and read the whole window through the view. */
+    @Benchmark
+    public long walkView() {
+        long sum = 0;
+        RssiRing.View v = view.refresh();
+        for (int k = 0, n = v.size(); k < n; k++) sum += v.rssi(k) + v.ssid(k);
+        return v.isValid() ? sum : -1;
+    }
+
+    /** One writer append. */
+    @Benchmark
+    public void add() {
+        now += 1_000;
+        ring.add(Synthetic.T0 + now, -40 - (int) (now / 1_000 % 50), 1_000, 1);
+    }
+}
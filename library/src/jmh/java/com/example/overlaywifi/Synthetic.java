@@ -0,0 +1,85 @@
+package com.example.overlaywifi;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic connection history for the benchmarks.
+ *
+ * Gaps between events are exponential with a mean of {@link #MEAN_GAP_MS}; one
+ * event in eight repeats the previous state (e.g. a roam to another SSID), the
+ * rest alternate. SSID ids cycle through {@link #SSIDS} networks. The same seed
+ * always yields the same events, so a log and a series built from it match.
+ */
+final class Synthetic {
+
+    static final long T0          = 1_700_000_000_000L;   // Nov 2023
+    static final long MEAN_GAP_MS = 90_000;
+    static final int  SSIDS       = 8;
+
+    private final SplittableRandom rnd;
+    long    time = T0;
+    boolean connected;
+    int     ssid = 1;
+
+    Synthetic(long seed) { rnd = new SplittableRandom(seed); }
+
+    /** Advance to the next event. */
+    void next() {
+        time += 1 + (long) (-Math.log(1 - rnd.nextDouble()) * MEAN_GAP_MS);
+        if (rnd.nextInt(8) != 0) connected = !connected;
+        if (connected && rnd.nextInt(4) == 0) ssid = 1 + rnd.nextInt(SSIDS);
+    }
+
+    /** {@code n} events as an {@link EventSeries}. */
+    static EventSeries series(int n, long seed) {
+        EventSeries s = new EventSeries();
+        Synthetic g = new Synthetic(seed);
+        for (int i = 0; i < n; i++) {
+            g.next();
+            s.add(g.time, g.connected, g.connected ? g.ssid : SsidDictionary.NONE);
+        }
+        return s;
+    }
+
+    /** Write {@code n} events as an {@link EventLog} file with its {@link EventIndex} sidecar. */
+    static File log(File dir, int n, long seed) throws IOException {
+        File f = new File(dir, "bench_" + n + ".bin");
+        Synthetic g = new Synthetic(seed);
+        ByteBuffer buf = ByteBuffer.allocate(4096 * EventLog.RECORD_SIZE);
+        try (FileOutputStream out = new FileOutputStream(f); FileChannel ch = out.getChannel()) {
+            EventLog.putHeader(buf, T0);
+            for (int i = 0; i < n; i++) {
+                g.next();
+                EventLog.putRecord(buf, g.time, g.connected, g.connected ? g.ssid : SsidDictionary.NONE, 0);
+                if (!buf.hasRemaining()) drain(buf, ch);
+            }
+            drain(buf, ch);
+        }
+        EventIndex.rebuild(f);
+        return f;
+    }
+
+    /** A dictionary in {@code dir} holding the {@link #SSIDS} network names. */
+    static SsidDictionary dictionary(File dir) throws IOException {
+        SsidDictionary d = SsidDictionary.load(new File(dir, "bench_ssids.txt"));
+        for (int i = 1; i <= SSIDS; i++) d.intern("network-" + i);
+        return d;
+    }
+
+    static void delete(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    private static void drain(ByteBuffer buf, FileChannel ch) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.overlaywifi;
+
+/**
+ * Picks the delay until the next RSSI sample from how much the signal moves.
+ *
+ * Tracks an exponentially weighted mean/variance of RSSI. A jump of at least
+ * {@link Policy#jumpDb} or a connection change switches to the burst period for
+ * {@link Policy#burstHoldMs}; a calm signal (std-dev below {@link Policy#calmDb}
+ * for {@link Policy#calmSamples} samples in a row) backs off to the idle period;
+ * everything else uses the normal period.
+ * Not thread-safe – owned by the sampler thread.
+ */
+public final class AdaptiveSampler {
+
+    /** Tunables for {@link AdaptiveSampler}. */
+    public static final class Policy {
+        public final long   burstMs, normalMs, idleMs;
+        public final long   burstHoldMs;     // how long a trigger keeps the burst rate
+        public final int    jumpDb;          // |Δ| between samples that triggers a burst
+        public final double calmDb;          // std-dev below which the signal counts as flat
+        public final int    calmSamples;     // consecutive calm samples before backing off
+
+        public Policy(long burstMs, long normalMs, long idleMs, long burstHoldMs,
+                      int jumpDb, double calmDb, int calmSamples) {
+            this.burstMs     = burstMs;
+            this.normalMs    = normalMs;
+            this.idleMs      = idleMs;
+            this.burstHoldMs = burstHoldMs;
+            this.jumpDb      = jumpDb;
+            this.calmDb      = calmDb;
+            this.calmSamples = calmSamples;
+        }
+
+        /** 2 s burst for 30 s, 10 s normal, 60 s after 12 flat samples (σ < 1.5 dB), burst on ≥ 6 dB jumps. */
+        public static final Policy DEFAULT = new Policy(2_000, 10_000, 60_000, 30_000, 6, 1.5, 12);
+    }
+
+    private static final double ALPHA = 0.2;     // EWMA weight of the newest sample
+
+    private final Policy policy;
+    private double  mean, var;
+    private boolean primed;
+    private int     lastRssi;
+    private int     calm;
+    private long    burstUntil;
+
+    public AdaptiveSampler(Policy policy) { this.policy = policy; }
+
+    /** Connection came up / changed: sample at burst rate for a while and forget old statistics. */
+    public void onConnectionChange(long now) {
+        primed     = false;
+        calm       = 0;
+        burstUntil = now + policy.burstHoldMs;
+    }
+
+    /**
+     * Feed the sample just taken.
+     * @return delay in ms until the next sample
+     */
+    public long onSample(long now, int rssi) {
+        if (!primed) {
+            mean = rssi; var = 0; lastRssi = rssi; primed = true;
+        } else {
+            if (Math.abs(rssi - lastRssi) >= policy.jumpDb) burstUntil = now + policy.burstHoldMs;
+            double d = rssi - mean;
+            mean += ALPHA * d;
+            var   = (1 - ALPHA) * (var + ALPHA * d * d);
+            lastRssi = rssi;
+        }
+
+        if (now < burstUntil) { calm = 0; return policy.burstMs; }
+        calm = Math.sqrt(var) < policy.calmDb ? calm + 1 : 0;
+        return calm >= policy.calmSamples ? policy.idleMs : policy.normalMs;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.overlaywifi;
+
+import java.util.TimeZone;
+
+/**
+ * Allocation-free formatting of epoch millis as wall-clock text, appended to a
+ * caller-owned {@link StringBuilder}. Replaces per-call
+ * {@code new SimpleDateFormat(..).format(new Date(t))} on hot UI paths.
+ */
+public final class ClockFormat {
+
+    public static final long MINUTE_MS = 60_000L;
+    public static final long HOUR_MS   = 60 * MINUTE_MS;
+    public static final long DAY_MS    = 24 * HOUR_MS;
+
+    private final TimeZone tz;
+
+    public ClockFormat(TimeZone tz) { this.tz = tz; }
+
+    /** Appends "HH:mm" for {@code t} in this formatter's time zone. */
+    public StringBuilder appendHourMinute(StringBuilder sb, long t) {
+        int minOfDay = (int) (Math.floorMod(local(t), DAY_MS) / MINUTE_MS);
+        return two(two(sb, minOfDay / 60).append(':'), minOfDay % 60);
+    }
+
+    /** Appends "dd.MM." for {@code t} in this formatter's time zone. */
+    public StringBuilder appendDayMonth(StringBuilder sb, long t) {
+        long ymd = civil(Math.floorDiv(local(t), DAY_MS));
+        return two(two(sb, (int) (ymd % 100)).append('.'), (int) (ymd / 100 % 100)).append('.');
+    }
+
+    /** Appends "yyyy-MM-dd HH:mm:ss" for {@code t} in this formatter's time zone. */
+    public StringBuilder appendDateTime(StringBuilder sb, long t) {
+        long local = local(t);
+        long ymd   = civil(Math.floorDiv(local, DAY_MS));
+        int  sec   = (int) (Math.floorMod(local, DAY_MS) / 1000);
+        sb.append(ymd / 10_000).append('-');
+        two(sb, (int) (ymd / 100 % 100)).append('-');
+        two(sb, (int) (ymd % 100)).append(' ');
+        two(sb, sec / 3600).append(':');
+        two(sb, sec / 60 % 60).append(':');
+        return two(sb, sec % 60);
+    }
+
+    /** Days since the epoch to yyyyMMdd (civil-from-days, H. Hinnant). */
+    private static long civil(long days) {
+        long z   = days + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long doe = z - era * 146_097;
+        long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+        int  doy = (int) (doe - (365 * yoe + yoe / 4 - yoe / 100));
+        int  mp  = (5 * doy + 2) / 153;
+        int  day = doy - (153 * mp + 2) / 5 + 1;
+        int  mon = mp < 10 ? mp + 3 : mp - 9;
+        long yr  = yoe + era * 400 + (mon <= 2 ? 1 : 0);
+        return yr * 10_000 + mon * 100 + day;
+    }
+
+    /**
+     * Writes a duration as "HH:MM:SS" (more hour digits past 99 h) into {@code out},
+     * which must hold at least 20 chars; returns the length.
+     */
+    public static int formatElapsed(long ms, char[] out) {
+        long s = Math.max(0, ms) / 1000;
+        long h = s / 3600;
+        int n = 0;
+        if (h >= 100) {
+            int digits = 0;
+            for (long v = h; v > 0; v /= 10) digits++;
+            for (int i = digits - 1; i >= 0; i--, h /= 10) out[n + i] = (char) ('0' + h % 10);
+            n += digits;
+        } else {
+            out[n++] = (char) ('0' + h / 10);
+            out[n++] = (char) ('0' + h % 10);
+        }
+        int m = (int) (s / 60 % 60), sec = (int) (s % 60);
+        out[n++] = ':'; out[n++] = (char) ('0' + m / 10);   out[n++] = (char) ('0' + m % 10);
+        out[n++] = ':'; out[n++] = (char) ('0' + sec / 10); out[n++] = (char) ('0' + sec % 10);
+        return n;
+    }
+
+    /** Wall-clock time of instant {@code t}, as millis on a UTC scale. */
+    public long local(long t) { return t + tz.getOffset(t); }
+
+    /** Instant of wall-clock time {@code local} (approximate within the hour of a DST switch). */
+    public long instant(long local) { return local - tz.getOffset(local); }
+
+    private static StringBuilder two(StringBuilder sb, int v) {
+        return sb.append((char) ('0' + v / 10)).append((char) ('0' + v % 10));
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.overlaywifi;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Running connectivity aggregates per local day and SSID, updated in O(1) per
+ * event and per RSSI sample, so statistics never rescan the history. Networks
+ * are {@link SsidDictionary} ids, as in the event log; names are resolved for display.
+ *
+ * Each (day, SSID) cell holds up/down time, outage count and durations, and an
+ * RSSI histogram with 1 dB bins, all of which merge by addition – a query for a
+ * day, an SSID or everything just sums the matching cells. Down time and outages
+ * belong to the SSID that was lost; an outage belongs to the day it began.
+ * Time is only counted between observed events: after a restart nothing is
+ * counted until the first event, so periods the process was dead stay unknown.
+ *
+ * File layout (big-endian), rewritten whole by {@link #save}:
+ *   header  magic "WST1" (i32) | version u16 | cell count i32
+ *   cell    day i64 | ssid id i32 | up ms i64 | down ms i64 | outages i32
+ *           | ended outages i32 | outage ms i64 | max outage ms i64 | samples i32
+ *           | rssi sum i64 | min i8 | max i8 | n u8 | n × (bin u8 | count i32)
+ * Version 1 stored the SSID as modified UTF-8; such a file is interned on load.
+ * Thread-safe.
+ */
+public final class ConnectivityStats {
+
+    /** {@link #query} wildcard for the day. */
+    public static final long ALL_DAYS = Long.MIN_VALUE;
+    /** {@link #query} wildcard for the network. */
+    public static final int  ALL_SSIDS = -1;
+
+    /** Aggregate of one or more cells. */
+    public static final class Summary {
+        long upMs, downMs, outageMs, maxOutageMs, rssiSum;
+        int  outages, ended, samples;
+        int  rssiMin = Integer.MAX_VALUE, rssiMax = Integer.MIN_VALUE;
+        final int[] hist = new int[BINS];      // hist[b] = samples at -b dBm
+
+        public long upMs()        { return upMs; }
+        public long downMs()      { return downMs; }
+        public int  outages()     { return outages; }
+        public long maxOutageMs() { return maxOutageMs; }
+        public int  samples()     { return samples; }
+        public int  rssiMin()     { return rssiMin; }
+        public int  rssiMax()     { return rssiMax; }
+
+        /** Share of observed time spent connected, NaN if nothing was observed. */
+        public double uptime() { return upMs + downMs == 0 ? Double.NaN : (double) upMs / (upMs + downMs); }
+
+        /** Mean length of outages that have ended, 0 if none. */
+        public long meanOutageMs() { return ended == 0 ? 0 : outageMs / ended; }
+
+        /** Mean connected time between outages; -1 if there was no outage. */
+        public long mtbfMs() { return outages == 0 ? -1 : upMs / outages; }
+
+        public double rssiMean() { return samples == 0 ? Double.NaN : (double) rssiSum / samples; }
+
+        /** RSSI at quantile {@code q} (0…1) from weakest to strongest, at 1 dB resolution; 0 if no samples. */
+        public int rssiPercentile(double q) {
+            if (samples == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * samples)), seen = 0;
+            for (int b = BINS - 1; b >= 0; b--) {
+                seen += hist[b];
+                if (seen >= rank) return -b;
+            }
+            return rssiMax;
+        }
+
+        void add(Summary o) {
+            upMs += o.upMs; downMs += o.downMs; outageMs += o.outageMs; rssiSum += o.rssiSum;
+            outages += o.outages; ended += o.ended; samples += o.samples;
+            maxOutageMs = Math.max(maxOutageMs, o.maxOutageMs);
+            rssiMin = Math.min(rssiMin, o.rssiMin);
+            rssiMax = Math.max(rssiMax, o.rssiMax);
+            for (int b = 0; b < BINS; b++) hist[b] += o.hist[b];
+        }
+    }
+
+    private static final int  MAGIC          = 0x57535431;   // "WST1"
+    private static final int  VERSION        = 2;            // 2: ssid ids instead of names
+    private static final int  BINS           = 128;          // 0 … -127 dBm
+    private static final long SAVE_MS        = 5 * ClockFormat.MINUTE_MS;
+    private static final int  RETENTION_DAYS = 400;
+    private static final int  NO_OUTAGE      = -1;           // outageSsid while none is open
+
+    private static final Map<String, ConnectivityStats> sInstances = new HashMap<>();
+
+    private final File           file;
+    private final SsidDictionary ssids;
+    private final ClockFormat    clock = new ClockFormat(TimeZone.getDefault());
+    private final TreeMap<Long, Map<Integer, Summary>> days = new TreeMap<>();
+
+    // the stretch being timed; nothing is open until the first event
+    private boolean known, up;
+    private int     current = SsidDictionary.NONE;         // connected SSID, or the one lost
+    private long    since;                                 // accounted up to here
+    private long    outageStart;
+    private int     outageSsid = NO_OUTAGE;                // SSID lost by the open outage
+    private long    lastSave;
+
+    /**
+     * The process-wide instance backed by {@code file} (keyed by its canonical path), loaded on first use.
+     * @param ssids the table the ids refer to; a version 1 file's names are interned into it
+     */
+    public static ConnectivityStats getInstance(File file, SsidDictionary ssids) {
+        String key;
+        try { key = file.getCanonicalPath(); } catch (IOException e) { key = file.getAbsolutePath(); }
+        synchronized (sInstances) {
+            ConnectivityStats s = sInstances.get(key);
+            if (s == null) sInstances.put(key, s = new ConnectivityStats(file, ssids));
+            return s;
+        }
+    }
+
+    private ConnectivityStats(File file, SsidDictionary ssids) {
+        this.file  = file;
+        this.ssids = ssids;
+        try { load(); } catch (IOException e) { days.clear(); }   // unreadable ⇒ start over
+    }
+
+    /* ---------- updates ---------- */
+
+    /** A connection state change at {@code t}; {@code ssidId} is ignored when disconnected. */
+    public synchronized void onEvent(long t, boolean connected, int ssidId) {
+        if (known) accrue(t);
+        if (known && up && !connected) {
+            cell(t, current).outages++;
+            outageStart = t;
+            outageSsid  = current;
+        } else if (connected && outageSsid != NO_OUTAGE) {
+            Summary c = cell(outageStart, outageSsid);
+            long d = Math.max(0, t - outageStart);
+            c.ended++;
+            c.outageMs   += d;
+            c.maxOutageMs = Math.max(c.maxOutageMs, d);
+            outageSsid = NO_OUTAGE;
+        }
+        if (connected) current = ssidId;
+        known = true;
+        up    = connected;
+        since = t;
+    }
+
+    /** The SSID of the current connection became known; time not yet accounted moves to it. */
+    public synchronized void onSsid(int ssidId) {
+        if (known && up) current = ssidId;
+    }
+
+    /** One RSSI sample; 0 (no reading) and samples while disconnected are ignored. */
+    public synchronized void onSample(long t, int rssi) {
+        if (!known || !up || rssi == 0) return;
+        Summary c = cell(t, current);
+        int b = Math.min(BINS - 1, Math.max(0, -rssi));
+        c.hist[b]++;
+        c.samples++;
+        c.rssiSum += rssi;
+        c.rssiMin  = Math.min(c.rssiMin, rssi);
+        c.rssiMax  = Math.max(c.rssiMax, rssi);
+    }
+
+    /* ---------- queries ---------- */
+
+    /** Local day number of instant {@code t}, the key of {@link #query}. */
+    public long dayOf(long t) { return Math.floorDiv(clock.local(t), ClockFormat.DAY_MS); }
+
+    /** First instant of local day {@code day}. */
+    public long startOf(long day) { return clock.instant(day * ClockFormat.DAY_MS); }
+
+    /**
+     * Sum of the cells of {@code day} ({@link #ALL_DAYS} for every day) and {@code ssidId}
+     * ({@link #ALL_SSIDS} for every SSID), including the open stretch up to {@code now}.
+     */
+    public synchronized Summary query(long day, int ssidId, long now) {
+        if (known) accrue(now);
+        Summary s = new Summary();
+        Map<Long, Map<Integer, Summary>> scope = day == ALL_DAYS ? days : days.subMap(day, true, day, true);
+        for (Map<Integer, Summary> cells : scope.values()) {
+            if (ssidId == ALL_SSIDS) for (Summary c : cells.values()) s.add(c);
+            else {
+                Summary c = cells.get(ssidId);
+                if (c != null) s.add(c);
+            }
+        }
+        return s;
+    }
+
+    /** Days with data, oldest first. */
+    public synchronized List<Long> days() { return new ArrayList<>(days.keySet()); }
+
+    /** Ids of the SSIDs with data on any day, {@link SsidDictionary#NONE} included. */
+    public synchronized List<Integer> ssids() {
+        List<Integer> out = new ArrayList<>();
+        for (Map<Integer, Summary> cells : days.values())
+            for (Integer id : cells.keySet()) if (!out.contains(id)) out.add(id);
+        return out;
+    }
+
+    /* ---------- persistence ---------- */
+
+    /** {@link #save} if the last one is older than a few minutes. */
+    public synchronized void saveIfDue(long now) throws IOException {
+        if (now - lastSave >= SAVE_MS) save(now);
+    }
+
+    /** Account the open stretch up to {@code now}, drop old days and rewrite the file atomically. */
+    public synchronized void save(long now) throws IOException {
+        if (known) accrue(now);
+        days.headMap(dayOf(now) - RETENTION_DAYS).clear();
+        lastSave = now;
+        int n = 0;
+        for (Map<Integer, Summary> cells : days.values()) n += cells.size();
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(n);
+            for (Map.Entry<Long, Map<Integer, Summary>> d : days.entrySet()) {
+                for (Map.Entry<Integer, Summary> e : d.getValue().entrySet()) {
+                    Summary c = e.getValue();
+                    out.writeLong(d.getKey());
+                    out.writeInt(e.getKey());
+                    out.writeLong(c.upMs); out.writeLong(c.downMs);
+                    out.writeInt(c.outages); out.writeInt(c.ended);
+                    out.writeLong(c.outageMs); out.writeLong(c.maxOutageMs);
+                    out.writeInt(c.samples); out.writeLong(c.rssiSum);
+                    out.writeByte(c.samples == 0 ? 0 : c.rssiMin);
+                    out.writeByte(c.samples == 0 ? 0 : c.rssiMax);
+                    int bins = 0;
+                    for (int b = 0; b < BINS; b++) if (c.hist[b] != 0) bins++;
+                    out.writeByte(bins);
+                    for (int b = 0; b < BINS; b++) if (c.hist[b] != 0) { out.writeByte(b); out.writeInt(c.hist[b]); }
+                }
+            }
+        }
+        if (!tmp.renameTo(file)) throw new IOException("Cannot rename " + tmp + " to " + file);
+    }
+
+    private void load() throws IOException {
+        if (!file.exists()) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int version = in.readInt() == MAGIC ? in.readShort() : -1;
+            if (version != 1 && version != VERSION) throw new IOException("Not a stats file: " + file);
+            for (int n = in.readInt(); n > 0; n--) {
+                long day = in.readLong();
+                int  id  = version == 1 ? ssids.intern(in.readUTF()) : in.readInt();
+                Summary c = new Summary();
+                Summary old = days.computeIfAbsent(day, k -> new HashMap<>()).put(id, c);
+                c.upMs = in.readLong(); c.downMs = in.readLong();
+                c.outages = in.readInt(); c.ended = in.readInt();
+                c.outageMs = in.readLong(); c.maxOutageMs = in.readLong();
+                c.samples = in.readInt(); c.rssiSum = in.readLong();
+                int min = in.readByte(), max = in.readByte();
+                if (c.samples > 0) { c.rssiMin = min; c.rssiMax = max; }
+                for (int bins = in.readUnsignedByte(); bins > 0; bins--) {
+                    int b = in.readUnsignedByte();
+                    c.hist[Math.min(b, BINS - 1)] += in.readInt();
+                }
+                if (old != null) c.add(old);                       // v1 names that intern alike
+            }
+        }
+    }
+
+    /* ---------- helpers ---------- */
+
+    /** Add the open stretch up to {@code t} to its cells, split at local midnights. */
+    private void accrue(long t) {
+        while (since < t) {
+            long end = Math.min(t, Math.max(since + 1, startOf(dayOf(since) + 1)));
+            Summary c = cell(since, current);
+            if (up) c.upMs += end - since; else c.downMs += end - since;
+            since = end;
+        }
+    }
+
+    private Summary cell(long t, int ssidId) {
+        Map<Integer, Summary> cells = days.get(dayOf(t));
+        if (cells == null) days.put(dayOf(t), cells = new HashMap<>());
+        Summary c = cells.get(ssidId);
+        if (c == null) cells.put(ssidId, c = new Summary());
+        return c;
+    }
+}
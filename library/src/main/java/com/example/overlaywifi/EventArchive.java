@@ -0,0 +1,277 @@
+package com.example.overlaywifi;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rotated {@link EventLog} segments and their compacted hourly rollups.
+ *
+ * Directory layout:
+ *   seg-<created>.bin     raw segment rotated out of the active log (unchanged format)
+ *   seg-<created>.bin.idx its {@link EventIndex} sidecar
+ *   rollup-<created>.gz   gzip'ed hourly rollups replacing a raw segment past {@link Policy#rawMs}
+ * Rollup record (20 B, big-endian):
+ *   hour start ms i64 | connected ms i32 | state changes i32 | ssid id of the longest connected stretch i32
+ * A file covers [its created stamp, the next file's created stamp); the newest one
+ * ends where the active log begins. Hours with neither uptime nor state changes
+ * are omitted from rollups. Rotation and compaction run on the journal thread.
+ */
+public final class EventArchive {
+
+    /** When the active log rotates and how long each tier is kept. */
+    public static final class Policy {
+        final long rawMs;            // raw segments older than this are rolled up
+        final long rollupMs;         // rollups older than this are deleted
+        final long maxActiveBytes;   // active log rotates at this size, or at local midnight
+
+        public Policy(long rawMs, long rollupMs, long maxActiveBytes) {
+            this.rawMs          = rawMs;
+            this.rollupMs       = Math.max(rawMs, rollupMs);
+            this.maxActiveBytes = Math.max(EventLog.HEADER_SIZE + EventLog.RECORD_SIZE, maxActiveBytes);
+        }
+
+        /** Raw for 30 days, hourly rollups for a year, active log capped at 256 KiB (16k events). */
+        public static final Policy DEFAULT = new Policy(30 * DAY_MS, 365 * DAY_MS, 256 * 1024);
+    }
+
+    /** Receives rollup hours, oldest first. */
+    public interface RollupSink {
+        void onHour(long hourStart, int connectedMs, int changes, int ssidId);
+    }
+
+    private static final long   HOUR_MS     = 3_600_000L;
+    private static final long   DAY_MS      = 24 * HOUR_MS;
+    private static final int    ROLLUP_SIZE = 20;
+    private static final String SEG_PREFIX  = "seg-",    SEG_SUFFIX    = ".bin";
+    private static final String ROLL_PREFIX = "rollup-", ROLL_SUFFIX   = ".gz";
+
+    private final File   dir;
+    private final Policy policy;
+
+    public EventArchive(File dir, Policy policy) {
+        this.dir    = dir;
+        this.policy = policy;
+    }
+
+    /* ---------- rotation (journal thread) ---------- */
+
+    /** True if an event at {@code t} must not go into an active log created at {@code created} holding {@code bytes}. */
+    public boolean shouldRotate(long created, long bytes, long t) {
+        return bytes + EventLog.RECORD_SIZE > policy.maxActiveBytes || localDay(t) != localDay(created);
+    }
+
+    /** Move the closed active log into the archive; readers see it vanish and reload. */
+    public void rotate(File active, long created) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        File seg = new File(dir, SEG_PREFIX + created + SEG_SUFFIX);
+        if (seg.exists() || !active.renameTo(seg)) throw new IOException("Cannot rotate " + active + " to " + seg);
+        File idx = EventIndex.fileFor(active);
+        //noinspection ResultOfMethodCallIgnored
+        if (idx.exists() && !idx.renameTo(EventIndex.fileFor(seg))) idx.delete();     // rebuilt by compact()
+    }
+
+    /**
+     * Roll up raw segments that ended before the raw window, delete rollups that
+     * ended before the rollup window, and index segments that lack a sidecar.
+     * @param activeCreated start of the active log, i.e. the end of the newest segment
+     * @return number of raw segments compacted
+     */
+    public int compact(long now, long activeCreated) throws IOException {
+        File[] files = files();
+        int n = 0;
+        for (int i = 0; i < files.length; i++) {
+            long end = i + 1 < files.length ? createdOf(files[i + 1]) : activeCreated;
+            if (isSegment(files[i]) && end <= now - policy.rawMs) {
+                rollUp(files[i], end);
+                n++;
+            } else if (!isSegment(files[i]) && end <= now - policy.rollupMs) {
+                //noinspection ResultOfMethodCallIgnored
+                files[i].delete();
+            } else if (isSegment(files[i]) && !EventIndex.fileFor(files[i]).exists()) {
+                EventIndex.rebuild(files[i]);
+            }
+        }
+        return n;
+    }
+
+    private void rollUp(File seg, long end) throws IOException {
+        int cap = (int) Math.max(0, (seg.length() - EventLog.HEADER_SIZE) / EventLog.RECORD_SIZE);
+        long[]    ts  = new long[cap];
+        boolean[] on  = new boolean[cap];
+        int[]     ids = new int[cap];
+        int[]     cnt = new int[1];
+        EventLog.read(seg, (t, c, id) -> {
+            if (cnt[0] == cap) return;
+            ts[cnt[0]] = t; on[cnt[0]] = c; ids[cnt[0]++] = id;
+        });
+        int n = cnt[0];
+
+        File tmp = new File(dir, ROLL_PREFIX + createdOf(seg) + ROLL_SUFFIX + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(tmp))))) {
+            long hour = Long.MIN_VALUE;
+            int  up = 0, changes = 0, ssid = SsidDictionary.NONE, best = 0;
+            for (int i = 0; i < n; i++) {
+                long t = ts[i], stop = Math.max(t, i + 1 < n ? ts[i + 1] : end);
+                boolean changed = i > 0 && on[i] != on[i - 1];
+                do {    // walk this event's stretch hour by hour
+                    long h = t - Math.floorMod(t, HOUR_MS);
+                    if (h != hour) {
+                        if (up > 0 || changes > 0) write(out, hour, up, changes, ssid);
+                        hour = h; up = changes = best = 0; ssid = SsidDictionary.NONE;
+                    }
+                    if (changed) { changes++; changed = false; }
+                    long next = Math.min(stop, hour + HOUR_MS);
+                    int  ms   = (int) (next - t);
+                    if (on[i]) {
+                        up += ms;
+                        if (ms > best) { best = ms; ssid = ids[i]; }
+                    }
+                    t = next;
+                } while (t < stop);
+            }
+            if (up > 0 || changes > 0) write(out, hour, up, changes, ssid);
+        }
+        File dst = new File(dir, ROLL_PREFIX + createdOf(seg) + ROLL_SUFFIX);
+        if (!tmp.renameTo(dst)) throw new IOException("Cannot rename " + tmp + " to " + dst);
+        //noinspection ResultOfMethodCallIgnored
+        seg.delete();
+        //noinspection ResultOfMethodCallIgnored
+        EventIndex.fileFor(seg).delete();
+    }
+
+    private static void write(DataOutputStream out, long hour, int connectedMs, int changes, int ssid) throws IOException {
+        out.writeLong(hour); out.writeInt(connectedMs); out.writeInt(changes); out.writeInt(ssid);
+    }
+
+    /* ---------- reading ---------- */
+
+    /** Raw segments overlapping [from, to), oldest first. */
+    public List<File> segments(long from, long to) {
+        File[] files = files();
+        List<File> out = new ArrayList<>();
+        for (int i = 0; i < files.length; i++) {
+            long start = createdOf(files[i]);
+            long end   = i + 1 < files.length ? createdOf(files[i + 1]) : Long.MAX_VALUE;
+            if (isSegment(files[i]) && start < to && end > from) out.add(files[i]);
+        }
+        return out;
+    }
+
+    /** Compressed size of all rollups, for progress reports. */
+    public long rollupBytes() {
+        long n = 0;
+        for (File f : files()) if (!isSegment(f)) n += f.length();
+        return n;
+    }
+
+    /**
+     * Deliver rollup hours in [from, to), oldest first.
+     * @return number of hours delivered
+     */
+    public int readRollups(long from, long to, RollupSink sink) throws IOException {
+        int n = 0;
+        for (File f : files()) {
+            if (isSegment(f) || createdOf(f) >= to) continue;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(new FileInputStream(f)), ROLLUP_SIZE * 256))) {
+                while (true) {
+                    long hour = in.readLong();
+                    int  ms = in.readInt(), changes = in.readInt(), ssid = in.readInt();
+                    if (hour >= from && hour < to) { sink.onHour(hour, ms, changes, ssid); n++; }
+                }
+            } catch (EOFException ignored) {
+                // end of archive (or a truncated one – keep what was read)
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Rollup hours in [from, to) as events the timeline can draw: each hour's
+     * uptime becomes one connected stretch from the hour start, on the network
+     * of its longest stretch. Exact change times are gone; only changes of state
+     * or network are delivered, oldest first.
+     * @return number of events delivered
+     */
+    public int readRollupEvents(long from, long to, EventLog.Sink sink) throws IOException {
+        RollupEvents ev = new RollupEvents(sink);
+        readRollups(from, to, ev);
+        ev.finish();
+        return ev.n;
+    }
+
+    /** Turns rollup hours back into state changes. */
+    private static final class RollupEvents implements RollupSink {
+        private final EventLog.Sink sink;
+        private boolean up;
+        private long    upTo;            // end of the current connected stretch
+        private long    hourEnd;         // end of the last hour seen
+        private int     ssid;
+        int n;
+
+        RollupEvents(EventLog.Sink sink) { this.sink = sink; }
+
+        @Override public void onHour(long hour, int connectedMs, int changes, int ssidId) {
+            if (up && (upTo < hour || connectedMs == 0)) emit(upTo, false, SsidDictionary.NONE);
+            if (connectedMs > 0) {
+                if (!up || ssidId != ssid) emit(hour, true, ssidId);
+                upTo = hour + connectedMs;
+            } else if (n == 0) {
+                emit(hour, false, SsidDictionary.NONE);
+            }
+            hourEnd = hour + HOUR_MS;
+        }
+
+        /** Close a stretch that ends inside the last hour; a full one is left to what follows. */
+        void finish() {
+            if (up && upTo < hourEnd) emit(upTo, false, SsidDictionary.NONE);
+        }
+
+        private void emit(long t, boolean connected, int ssidId) {
+            sink.onEvent(t, connected, ssidId);
+            up   = connected;
+            ssid = ssidId;
+            n++;
+        }
+    }
+
+    /* ---------- helpers ---------- */
+
+    /** Segments and rollups, ordered by created stamp. */
+    private File[] files() {
+        File[] fs = dir.listFiles((d, name) ->
+                name.startsWith(SEG_PREFIX) && name.endsWith(SEG_SUFFIX)
+                || name.startsWith(ROLL_PREFIX) && name.endsWith(ROLL_SUFFIX));
+        if (fs == null) return new File[0];
+        Arrays.sort(fs, (a, b) -> Long.compare(createdOf(a), createdOf(b)));
+        return fs;
+    }
+
+    private static boolean isSegment(File f) { return f.getName().startsWith(SEG_PREFIX); }
+
+    private static long createdOf(File f) {
+        String n = f.getName();
+        int from = isSegment(f) ? SEG_PREFIX.length() : ROLL_PREFIX.length();
+        int to   = n.length() - (isSegment(f) ? SEG_SUFFIX.length() : ROLL_SUFFIX.length());
+        try { return Long.parseLong(n.substring(from, to)); }
+        catch (NumberFormatException e) { return 0; }
+    }
+
+    private static long localDay(long t) {
+        return Math.floorDiv(t + TimeZone.getDefault().getOffset(t), DAY_MS);
+    }
+}
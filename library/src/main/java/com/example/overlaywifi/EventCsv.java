@@ -0,0 +1,59 @@
+package com.example.overlaywifi;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * CSV side of the event log: the one-time migrator for legacy
+ * {@code wifi_events.csv} files (exports go through {@link HistoryExport}).
+ * CSV columns: timestamp(ms), 0|1, ssid.
+ */
+public final class EventCsv {
+
+    private EventCsv() {}
+
+    /**
+     * Convert a legacy CSV log into {@code bin} once, skipping lines that do not
+     * parse. The CSV is renamed to {@code *.migrated} afterwards so it is never
+     * converted twice.
+     * Does nothing when {@code csv} does not exist.
+     * @return number of records migrated
+     */
+    public static int migrate(File csv, File bin, SsidDictionary dict) throws IOException {
+        if (!csv.exists()) return 0;
+        int n = 0;
+        if (!bin.exists()) {
+            File tmp = new File(bin.getPath() + ".tmp");
+            try (InputStream in = new FileInputStream(csv);
+                 FileOutputStream out = new FileOutputStream(tmp);
+                 FileChannel ch = out.getChannel()) {
+                EventCsvParser p = new EventCsvParser(in);
+                ByteBuffer buf = ByteBuffer.allocate(64 * EventLog.RECORD_SIZE);
+                boolean header = false;
+                while (p.next()) {
+                    if (!header) { EventLog.putHeader(buf, p.timestamp); header = true; }
+                    int id = p.connected ? dict.intern(p.buf, p.ssidOff, p.ssidLen) : SsidDictionary.NONE;
+                    EventLog.putRecord(buf, p.timestamp, p.connected, id, 0);
+                    n++;
+                    if (buf.remaining() < EventLog.RECORD_SIZE) drain(ch, buf);
+                }
+                drain(ch, buf);
+            }
+            if (!tmp.renameTo(bin)) throw new IOException("Cannot rename " + tmp + " to " + bin);
+        }
+        // bin already present ⇒ an earlier run converted it but died before this rename
+        if (!csv.renameTo(new File(csv.getPath() + ".migrated"))) throw new IOException("Cannot retire " + csv);
+        return n;
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+}
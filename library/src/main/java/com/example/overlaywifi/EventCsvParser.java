@@ -0,0 +1,124 @@
+package com.example.overlaywifi;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Byte-level streaming parser for legacy {@code timestamp,state,ssid} lines.
+ *
+ * Decodes straight out of one reusable buffer into the public primitive
+ * fields below – no String, String[] or boxing per line. Lines that do not
+ * parse are skipped and counted in {@link #malformed()} instead of aborting
+ * the whole file. The SSID is exposed as a byte range into {@link #buf}
+ * that stays valid until the next {@link #next()} call.
+ */
+public final class EventCsvParser {
+
+    private static final int BUF_SIZE = 64 * 1024;
+    private static final int MAX_LINE = 4 * 1024;    // longer lines are treated as garbage
+
+    /* ---------- current record ---------- */
+    public long         timestamp;
+    public boolean      connected;
+    public final byte[] buf = new byte[BUF_SIZE];
+    public int          ssidOff, ssidLen;
+
+    private final InputStream in;
+    private int  pos, end;
+    private boolean eof;
+    private long malformed;
+
+    public EventCsvParser(InputStream in) { this.in = in; }
+
+    /** Lines skipped because they could not be decoded. */
+    public long malformed() { return malformed; }
+
+    /** Advance to the next well-formed line; false at end of input. */
+    public boolean next() throws IOException {
+        while (true) {
+            int eol = findEol();
+            if (eol < 0) return false;
+            int from = pos;
+            pos = eol + 1;
+            if (eol - from > MAX_LINE) { malformed++; continue; }
+            switch (decode(from, eol)) {
+                case OK:        return true;
+                case MALFORMED: malformed++; break;
+                default:        break;            // blank line
+            }
+        }
+    }
+
+    /* ---------- implementation details ---------- */
+
+    private static final int OK = 0, MALFORMED = 1, BLANK = 2;
+
+    /** Index of the next '\n' (or of the end of a final unterminated line); refills as needed. */
+    private int findEol() throws IOException {
+        int scan = pos;
+        while (true) {
+            for (; scan < end; scan++) if (buf[scan] == '\n') return scan;
+            if (eof) {
+                if (pos < end) { buf[end] = '\n'; return end++; }   // synthetic terminator, buf never full here
+                return -1;
+            }
+            if (pos > 0) {                                        // compact
+                System.arraycopy(buf, pos, buf, 0, end - pos);
+                scan -= pos; end -= pos; pos = 0;
+            }
+            if (end >= buf.length - 1) {                          // over-long line: drop what we have
+                malformed++;
+                skipToEol();
+                scan = pos;
+                continue;
+            }
+            int n = in.read(buf, end, buf.length - 1 - end);
+            if (n < 0) eof = true; else end += n;
+        }
+    }
+
+    private void skipToEol() throws IOException {
+        while (true) {
+            int n = in.read(buf, 0, buf.length - 1);
+            if (n < 0) { eof = true; pos = end = 0; return; }
+            for (int i = 0; i < n; i++) {
+                if (buf[i] == '\n') { pos = i + 1; end = n; return; }
+            }
+        }
+    }
+
+    /** Decode buf[from, to) into the public fields. */
+    private int decode(int from, int to) {
+        if (to > from && buf[to - 1] == '\r') to--;
+        if (to == from) return BLANK;
+
+        // timestamp: plain non-negative integer
+        int i = from;
+        long ts = 0;
+        int digits = 0;
+        for (; i < to && buf[i] != ','; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9 || ++digits > 18) return MALFORMED;
+            ts = ts * 10 + d;
+        }
+        if (digits == 0 || i == to) return MALFORMED;
+        i++;
+
+        // state: "0"/"1", optionally written as a float ("1.0")
+        if (i == to) return MALFORMED;
+        int st = buf[i] - '0';
+        if (st != 0 && st != 1) return MALFORMED;
+        i++;
+        if (i < to && buf[i] == '.') {
+            for (i++; i < to && buf[i] == '0'; i++) {}
+        }
+        if (i == to || buf[i] != ',') return MALFORMED;
+        i++;
+
+        timestamp = ts;
+        connected = st == 1;
+        ssidOff   = i;
+        ssidLen   = to - i;
+        return OK;
+    }
+}
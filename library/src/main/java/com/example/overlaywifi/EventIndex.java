@@ -0,0 +1,184 @@
+package com.example.overlaywifi;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Sparse time index of an {@link EventLog} file, kept in a {@code <log>.idx} sidecar.
+ *
+ * Layout, all big-endian:
+ *   header  (12 B)  magic "WIX1" | created ms i64 (header stamp of the indexed log)
+ *   entry   (16 B)  hour bucket start ms i64 | byte offset of its first record i64
+ * An entry is added whenever a record opens a later hour than the previous one,
+ * so records between two entries' offsets all fall in the first entry's hour.
+ * The journal appends entries after the records they point to are written; a
+ * sidecar that lags the log only makes seeks land earlier. A missing or foreign
+ * sidecar is rebuilt by one scan of the log. Assumes records are time-ordered.
+ */
+public final class EventIndex {
+
+    public static final String SUFFIX = ".idx";
+
+    private static final int  MAGIC       = 0x57495831;   // "WIX1"
+    private static final int  HEADER_SIZE = 12;
+    private static final int  ENTRY_SIZE  = 16;
+    private static final long BUCKET_MS   = 3_600_000L;
+
+    private long[] buckets = new long[64];
+    private long[] offsets = new long[64];
+    private int    size;
+
+    private EventIndex() {}
+
+    public static File fileFor(File log) { return new File(log.getPath() + SUFFIX); }
+
+    /* ---------- reading ---------- */
+
+    /**
+     * Byte offset in {@code log} to start reading from so that every record at or
+     * after {@code t}, and the last record of an earlier hour, are seen.
+     */
+    public static long seek(File log, long t) throws IOException {
+        long created = EventLog.created(log);
+        if (created == 0) return EventLog.HEADER_SIZE;
+        EventIndex idx = load(log, created);
+        if (idx == null) idx = scan(log);
+        long bucket = bucketOf(t);
+        int lo = 0, hi = idx.size;          // first entry with bucket ≥ t's bucket
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (idx.buckets[mid] < bucket) lo = mid + 1; else hi = mid;
+        }
+        return lo > 0 ? idx.offsets[lo - 1] : EventLog.HEADER_SIZE;
+    }
+
+    /** The sidecar's entries if it belongs to {@code log} in its current form, else null. */
+    private static EventIndex load(File log, long created) throws IOException {
+        File f = fileFor(log);
+        long len = f.length();
+        if (len < HEADER_SIZE || (len - HEADER_SIZE) % ENTRY_SIZE != 0) return null;   // torn append
+        EventIndex idx = new EventIndex();
+        try (FileInputStream in = new FileInputStream(f); FileChannel ch = in.getChannel()) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, len);
+            if (map.getInt(0) != MAGIC || map.getLong(4) != created) return null;
+            long logLen = log.length();
+            for (int p = HEADER_SIZE; p < len; p += ENTRY_SIZE) {
+                long off = map.getLong(p + 8);
+                if (off >= logLen) return null;          // log was truncated under the index
+                idx.add(map.getLong(p), off);
+            }
+        }
+        return idx;
+    }
+
+    /** Build the entries of {@code log} in memory by one pass over its records. */
+    private static EventIndex scan(File log) throws IOException {
+        EventIndex idx = new EventIndex();
+        try (FileInputStream in = new FileInputStream(log); FileChannel ch = in.getChannel()) {
+            long size = ch.size();
+            int n = (int) ((size - EventLog.HEADER_SIZE) / EventLog.RECORD_SIZE);
+            if (n <= 0) return idx;
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, EventLog.HEADER_SIZE, (long) n * EventLog.RECORD_SIZE);
+            for (int i = 0, p = 0; i < n; i++, p += EventLog.RECORD_SIZE) {
+                if (EventLog.isValid(map, p)) idx.note(map.getLong(p), EventLog.HEADER_SIZE + p);
+            }
+        }
+        return idx;
+    }
+
+    /* ---------- writing (journal thread / archive) ---------- */
+
+    /** Appends entries for one log as its records are written. */
+    static final class Writer {
+        private final EventIndex       idx;
+        private final DataOutputStream out;
+        private int                    written;
+
+        /**
+         * Adopt the sidecar of {@code log} (header stamp {@code created}, 0 if not
+         * written yet), rebuilding it first if it is missing or foreign.
+         */
+        Writer(File log, long created) throws IOException {
+            EventIndex loaded = created == 0 ? null : load(log, created);
+            boolean fresh = loaded == null;
+            idx = fresh ? (created == 0 ? new EventIndex() : scan(log)) : loaded;
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileFor(log), !fresh)));
+            written = fresh ? 0 : idx.size;
+            if (fresh && created != 0) {
+                header(created);
+                flush();
+            }
+        }
+
+        /** Must precede the first {@link #record} when the log was empty at construction. */
+        void header(long created) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeLong(created);
+        }
+
+        /** A record at {@code t} is being written at byte {@code offset} of the log. */
+        void record(long t, long offset) { idx.note(t, offset); }
+
+        /** Persist entries noted so far; call after the records they refer to are written. */
+        void flush() throws IOException {
+            for (; written < idx.size; written++) {
+                out.writeLong(idx.buckets[written]);
+                out.writeLong(idx.offsets[written]);
+            }
+            out.flush();
+        }
+
+        void close() {
+            try { flush(); out.close(); } catch (IOException ignored) {}
+        }
+
+        /** Close without persisting pending entries, e.g. when their records were never written. */
+        void discard() {
+            try { out.close(); } catch (IOException ignored) {}
+        }
+    }
+
+    /** Write a complete sidecar for a finished log (e.g. an archived segment without one). */
+    static void rebuild(File log) throws IOException {
+        long created = EventLog.created(log);
+        if (created == 0) return;
+        EventIndex idx = scan(log);
+        File tmp = new File(fileFor(log).getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(created);
+            for (int i = 0; i < idx.size; i++) { out.writeLong(idx.buckets[i]); out.writeLong(idx.offsets[i]); }
+        }
+        if (!tmp.renameTo(fileFor(log))) throw new IOException("Cannot rename " + tmp);
+    }
+
+    /* ---------- helpers ---------- */
+
+    /** Add an entry if {@code t} opens a later bucket than the last one. */
+    private void note(long t, long offset) {
+        long b = bucketOf(t);
+        if (size == 0 || b > buckets[size - 1]) add(b, offset);
+    }
+
+    private void add(long bucket, long offset) {
+        if (size == buckets.length) {
+            buckets = Arrays.copyOf(buckets, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        buckets[size] = bucket;
+        offsets[size++] = offset;
+    }
+
+    /** Start of t's bucket; saturates instead of wrapping for t within a bucket of Long.MIN_VALUE. */
+    private static long bucketOf(long t) {
+        long b = t - Math.floorMod(t, BUCKET_MS);
+        return b > t ? Long.MIN_VALUE : b;
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.overlaywifi;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous, batched writer for {@link EventLog}.
+ *
+ * {@link #append} only enqueues (never blocks, never touches disk); a dedicated
+ * thread drains the bounded queue and group-commits records through one
+ * long-lived {@link FileChannel} according to a {@link FlushPolicy}.
+ * SSID interning, the one-time CSV migration and log rotation into the
+ * {@link EventArchive} (with its compaction) also run on that thread, so the
+ * active log only ever holds the current day, capped in size. Its
+ * {@link EventIndex} sidecar is extended after every write. An I/O error does
+ * not stop the writer: the records it cost are counted in {@link #dropped}, the
+ * log is reopened (cut back to its last whole record) for the next event.
+ * Write and rotation times land in the {@link Metrics} histograms {@code journal.*}.
+ */
+public final class EventJournal {
+
+    /** When buffered records reach the file, and whether they are fsync'ed then. */
+    public static final class FlushPolicy {
+        final long    maxDelayMs;     // 0 = write as soon as the queue is drained
+        final int     maxRecords;     // write once this many are buffered
+        final boolean fsync;
+
+        private FlushPolicy(long maxDelayMs, int maxRecords, boolean fsync) {
+            this.maxDelayMs = maxDelayMs;
+            this.maxRecords = Math.max(1, Math.min(maxRecords, BATCH_RECORDS));
+            this.fsync      = fsync;
+        }
+
+        /** Every drained batch is written (and optionally fsync'ed) right away. */
+        public static FlushPolicy immediate(boolean fsync)               { return new FlushPolicy(0, BATCH_RECORDS, fsync); }
+        /** Buffer for at most {@code ms} after the first pending record. */
+        public static FlushPolicy everyMillis(long ms, boolean fsync)    { return new FlushPolicy(ms, BATCH_RECORDS, fsync); }
+        /** Buffer until {@code n} records are pending (close() still flushes the rest). */
+        public static FlushPolicy everyRecords(int n, boolean fsync)     { return new FlushPolicy(Long.MAX_VALUE, n, fsync); }
+    }
+
+    private static final int  QUEUE_CAPACITY = 1024;
+    private static final int  BATCH_RECORDS  = 256;
+    private static final long CLOSE_WAIT_MS  = 2_000;
+
+    private static final class Pending {
+        final long timestamp; final boolean connected; final String ssid; final int flaps;
+        Pending(long t, boolean c, String s, int f) { timestamp = t; connected = c; ssid = s; flaps = f; }
+    }
+    private static final Pending CLOSE = new Pending(0, false, null, 0);
+
+    private static final Metrics.Histogram WRITE   = Metrics.histogram("journal.write");    // write + fsync + index
+    private static final Metrics.Histogram ROTATE  = Metrics.histogram("journal.rotate");   // incl. compaction
+    private static final Metrics.Counter   RECORDS = Metrics.counter("journal.records");
+    private static final Metrics.Counter   DROPPED = Metrics.counter("journal.dropped");
+
+    private final File           logFile, ssidFile, legacyCsv;
+    private final FlushPolicy    policy;
+    private final EventArchive   archive;
+    private final BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread         writer;
+    private final AtomicLong     dropped = new AtomicLong();
+    private volatile boolean     closed;      // set by close(); later appends are rejected
+
+    // writer thread only
+    private FileChannel       ch;          // null after an I/O error until reopened
+    private EventIndex.Writer index;
+    private ByteBuffer        buf;
+    private int               buffered;    // records in buf
+    private long              created;     // header stamp of the active log, 0 ⇒ header still to be written
+    private long              bytes;       // its length including buffered records
+    private boolean           rotatable = true;   // cleared if a rotation fails
+
+    /**
+     * @param legacyCsv old CSV log to migrate before the first write, or null
+     * @param archive   where the active log rotates to; compacted on start and after each rotation
+     */
+    public EventJournal(File logFile, File ssidFile, File legacyCsv, EventArchive archive, FlushPolicy policy) {
+        this.logFile   = logFile;
+        this.ssidFile  = ssidFile;
+        this.legacyCsv = legacyCsv;
+        this.archive   = archive;
+        this.policy    = policy;
+        writer = new Thread(this::run, "event-journal");
+        writer.start();
+    }
+
+    /* ---------- producer side (any thread) ---------- */
+
+    /**
+     * Queue one event; returns false (and counts a drop) if the queue is full or closed.
+     * @param flaps transitions suppressed by a {@link FlapFilter} before this one
+     */
+    public boolean append(long timestamp, boolean connected, String ssid, int flaps) {
+        Pending p = new Pending(timestamp, connected, ssid, flaps);
+        boolean ok = !closed && writer.isAlive() && queue.offer(p);
+        // racing close(): take it back unless the writer already has it (then it writes or counts it)
+        if (ok && closed && queue.remove(p)) ok = false;
+        if (!ok) { dropped.incrementAndGet(); DROPPED.inc(); }
+        return ok;
+    }
+
+    /** Events rejected because the queue was full or closed, or lost to a failed write. */
+    public long dropped() { return dropped.get(); }
+
+    /**
+     * Flush everything still queued and stop the writer. Blocks the caller for at
+     * most {@link #CLOSE_WAIT_MS} in total (queueing the stop plus waiting for it);
+     * past that the writer finishes the flush on its own. Events appended from here
+     * on are rejected.
+     */
+    public void close() {
+        closed = true;
+        long deadline = System.nanoTime() / 1_000_000 + CLOSE_WAIT_MS;
+        try {
+            if (queue.offer(CLOSE, CLOSE_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                long left = deadline - System.nanoTime() / 1_000_000;
+                if (left > 0) writer.join(left);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* ---------- writer thread ---------- */
+
+    private void run() {
+        SsidDictionary ssids = SsidDictionary.shared(ssidFile);
+        if (legacyCsv != null) {
+            try { EventCsv.migrate(legacyCsv, logFile, ssids); } catch (IOException ignored) {}
+        }
+
+        buf = ByteBuffer.allocate(EventLog.HEADER_SIZE + BATCH_RECORDS * EventLog.RECORD_SIZE);
+        List<Pending> batch = new ArrayList<>(BATCH_RECORDS);
+        long firstAt    = 0;      // uptime of the oldest unwritten record
+        boolean closing = false;
+
+        try {
+            try { open(); compact(created); } catch (IOException e) { fail(e); }
+            while (!closing) {
+                long wait = buffered == 0 || policy.maxDelayMs == Long.MAX_VALUE
+                        ? Long.MAX_VALUE
+                        : Math.max(0, firstAt + policy.maxDelayMs - System.nanoTime() / 1_000_000);
+                Pending p = wait == Long.MAX_VALUE
+                        ? queue.take()
+                        : queue.poll(wait, TimeUnit.MILLISECONDS);
+
+                if (p != null) {
+                    batch.add(p);
+                    queue.drainTo(batch, BATCH_RECORDS - buffered - 1);   // group commit
+                    for (int i = 0; i < batch.size(); i++) {
+                        Pending e = batch.get(i);
+                        if (e == CLOSE) {
+                            closing = true;
+                            lost(batch.size() - i - 1);           // slipped in behind the stop
+                            break;
+                        }
+                        try {
+                            if (ch == null) open();
+                            if (created != 0 && rotatable && archive.shouldRotate(created, bytes, e.timestamp)) rotate(e.timestamp);
+                            if (created == 0) {
+                                EventLog.putHeader(buf, e.timestamp);
+                                index.header(e.timestamp);
+                                created = e.timestamp;
+                                bytes   = EventLog.HEADER_SIZE;
+                            }
+                        } catch (IOException ex) {
+                            fail(ex);
+                            lost(1);                              // this event too
+                            continue;
+                        }
+                        int id;
+                        try { id = e.connected ? ssids.intern(e.ssid) : SsidDictionary.NONE; }
+                        catch (IOException ex) { id = SsidDictionary.NONE; }
+                        EventLog.putRecord(buf, e.timestamp, e.connected, id, e.flaps);
+                        RECORDS.inc();
+                        index.record(e.timestamp, bytes);
+                        bytes += EventLog.RECORD_SIZE;
+                        if (buffered++ == 0) firstAt = System.nanoTime() / 1_000_000;
+                    }
+                    batch.clear();
+                }
+
+                boolean due = buffered >= policy.maxRecords
+                        || buffered > 0 && (closing || p == null || policy.maxDelayMs == 0);
+                if (due) {
+                    try { write(); } catch (IOException ex) { fail(ex); }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (ch != null) try { ch.close(); } catch (IOException ignored) {}
+            if (index != null) index.close();
+            int left = 0;
+            for (Pending e; (e = queue.poll()) != null; ) if (e != CLOSE) left++;
+            lost(left);
+        }
+    }
+
+    /** (Re)open the active log for appending, first cutting off a torn record or header a failed write may have left. */
+    private void open() throws IOException {
+        created = EventLog.created(logFile);
+        FileChannel c = new FileOutputStream(logFile, true).getChannel();
+        try {
+            long size  = c.size();
+            long whole = created == 0 ? 0 : size - (size - EventLog.HEADER_SIZE) % EventLog.RECORD_SIZE;
+            if (whole < size) c.truncate(whole);
+            bytes = whole;
+            index = new EventIndex.Writer(logFile, created);
+        } catch (IOException e) {
+            c.close();
+            throw e;
+        }
+        ch = c;
+    }
+
+    /** Flush what is buffered, then move the active log into the archive and start a new one. */
+    private void rotate(long at) throws IOException {
+        write();
+        long t0 = System.nanoTime();
+        ch.close();
+        index.close();
+        ch    = null;
+        index = null;
+        try {
+            archive.rotate(logFile, created);
+        } catch (IOException ex) {
+            rotatable = false;                                    // keep appending to the old log
+        }
+        open();
+        if (created == 0) compact(at);
+        ROTATE.since(t0);
+    }
+
+    /** Give up the channel after an I/O error; the buffered records are lost and counted. The next event reopens. */
+    private void fail(IOException e) {
+        lost(buffered);
+        buffered = 0;
+        buf.clear();
+        if (ch != null) try { ch.close(); } catch (IOException ignored) {}
+        if (index != null) index.discard();                      // its pending entries point at lost records
+        ch    = null;
+        index = null;
+    }
+
+    private void lost(int records) {
+        if (records == 0) return;
+        dropped.addAndGet(records);
+        DROPPED.add(records);
+    }
+
+    /** Roll up / expire archived history; failures only postpone it to the next rotation. */
+    private void compact(long activeCreated) {
+        try { archive.compact(System.currentTimeMillis(), activeCreated != 0 ? activeCreated : System.currentTimeMillis()); }
+        catch (IOException ignored) {}
+    }
+
+    private void write() throws IOException {
+        long t0 = System.nanoTime();
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+        buffered = 0;
+        if (policy.fsync) ch.force(false);
+        index.flush();          // only ever points at records already in the log
+        WRITE.since(t0);
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.overlaywifi;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Fixed-width binary connection log (successor of the old wifi_events.csv).
+ *
+ * Layout, all big-endian:
+ *   header  (16 B)  magic "WEV1" | version u16 | record size u16 | created ms i64
+ *   record  (16 B)  timestamp ms i64 | state u8 (0|1) | flags u8 (0) | flaps u16 | ssid id i32
+ * {@code flaps} counts the transitions a {@link FlapFilter} suppressed before this
+ * record was committed (0 in logs written before it existed, where it was reserved).
+ *
+ * Records are decoded straight out of a memory-mapped {@link FileChannel};
+ * SSID names live in {@link SsidDictionary} and are resolved only for display.
+ * A {@link Cursor} lets readers consume only what was appended since last time.
+ * {@link #readRange} seeks through the {@link EventIndex} sidecar, so reading a
+ * time window costs the same however much history precedes it.
+ * Records failing {@link #isValid} (torn or garbled writes) are skipped and
+ * counted in {@link Cursor#malformed()} instead of aborting the read.
+ */
+public final class EventLog {
+
+    public static final int   MAGIC       = 0x57455631;     // "WEV1"
+    public static final short VERSION     = 1;
+    public static final int   HEADER_SIZE = 16;
+    public static final int   RECORD_SIZE = 16;
+
+    // plausible timestamp window; anything outside is treated as garbage
+    private static final long MIN_TS = 946_684_800_000L;     // 2000-01-01
+    private static final long MAX_TS = 4_102_444_800_000L;   // 2100-01-01
+
+    /** Receives decoded records in file order. */
+    public interface Sink {
+        void onEvent(long timestamp, boolean connected, int ssidId);
+
+        /** Called instead of the three-argument form; override to see the flap count. */
+        default void onEvent(long timestamp, boolean connected, int ssidId, int flaps) {
+            onEvent(timestamp, connected, ssidId);
+        }
+    }
+
+    /** {@link #readTail} result: file was truncated or replaced, caller must drop what it has. */
+    public static final int STALE = -1;
+
+    /** Incremental read position: bytes consumed so far and the header stamp they belong to. */
+    public static final class Cursor {
+        long offset;     // next unread byte; 0 = header not seen yet
+        long created;    // header "created" stamp of the file the offset refers to
+        long malformed;  // records skipped so far
+
+        public long offset()    { return offset; }
+        public long created()   { return created; }
+        public long malformed() { return malformed; }
+
+        public void reset() { offset = 0; created = 0; malformed = 0; }
+    }
+
+    private EventLog() {}
+
+    /* ---------- writing (used by EventJournal / EventCsv) ---------- */
+
+    static void putHeader(ByteBuffer buf, long created) {
+        buf.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE).putLong(created);
+    }
+
+    static void putRecord(ByteBuffer buf, long timestamp, boolean connected, int ssidId, int flaps) {
+        buf.putLong(timestamp).put((byte) (connected ? 1 : 0)).put((byte) 0)
+           .putShort((short) Math.min(flaps, FlapFilter.MAX_FLAPS)).putInt(ssidId);
+    }
+
+    /* ---------- reading ---------- */
+
+    /** The header "created" stamp of {@code f}, or 0 if it has no complete header yet. */
+    public static long created(File f) throws IOException {
+        if (f.length() < HEADER_SIZE) return 0;
+        try (FileInputStream in = new FileInputStream(f); FileChannel ch = in.getChannel()) {
+            ByteBuffer head = ByteBuffer.allocate(HEADER_SIZE);
+            while (head.hasRemaining() && ch.read(head, head.position()) > 0) {}
+            if (head.getInt(0) != MAGIC) throw new IOException("Not an event log: " + f);
+            return head.getLong(8);
+        }
+    }
+
+    /**
+     * Decode every valid record of {@code f} into {@code sink}.
+     * A missing or empty file yields 0; a foreign header throws.
+     * @return number of records delivered
+     */
+    public static int read(File f, Sink sink) throws IOException {
+        return readTail(f, new Cursor(), sink);
+    }
+
+    /** Same as {@link #read(File, Sink)}, leaving the skipped-record count in {@code cur}. */
+    public static int read(File f, Cursor cur, Sink sink) throws IOException {
+        cur.reset();
+        return readTail(f, cur, sink);
+    }
+
+    /**
+     * Decode only the records appended since {@code cur} was last advanced, then
+     * advance it past them (a torn tail record is left for the next call).
+     * If the file shrank below the cursor or its header stamp changed (rotation),
+     * the cursor is reset and {@link #STALE} is returned without delivering anything;
+     * the caller should discard its events and call again.
+     * @return number of records delivered, or {@link #STALE}
+     */
+    public static int readTail(File f, Cursor cur, Sink sink) throws IOException {
+        if (!f.exists()) {
+            if (cur.offset == 0) return 0;
+            cur.reset();
+            return STALE;
+        }
+        try (FileInputStream in = new FileInputStream(f); FileChannel ch = in.getChannel()) {
+            long size = ch.size();
+            if (size < cur.offset) { cur.reset(); return STALE; }
+            if (size < HEADER_SIZE) return 0;
+
+            ByteBuffer head = ByteBuffer.allocate(HEADER_SIZE);
+            while (head.hasRemaining() && ch.read(head, head.position()) > 0) {}
+            if (head.getInt(0) != MAGIC) throw new IOException("Not an event log: " + f);
+            long created = head.getLong(8);
+            if (cur.offset == 0) {
+                cur.offset  = HEADER_SIZE;
+                cur.created = created;
+            } else if (cur.created != created) {
+                cur.reset();
+                return STALE;
+            }
+
+            int n = (int) ((size - cur.offset) / RECORD_SIZE);
+            if (n == 0) return 0;
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, cur.offset, (long) n * RECORD_SIZE);
+            int delivered = 0;
+            for (int i = 0, p = 0; i < n; i++, p += RECORD_SIZE) {
+                if (!isValid(map, p)) { cur.malformed++; continue; }
+                deliver(map, p, sink);
+                delivered++;
+            }
+            cur.offset += (long) n * RECORD_SIZE;
+            return delivered;
+        }
+    }
+
+    /**
+     * Decode the records of {@code f} with time in [from, to), preceded by the last
+     * record before {@code from} (the state at the window start) if there is one.
+     * Seeks via {@link EventIndex}; stops at the first record at or after {@code to}.
+     * @return number of records delivered
+     */
+    public static int readRange(File f, long from, long to, Sink sink) throws IOException {
+        if (!f.exists()) return 0;
+        long start = EventIndex.seek(f, from);
+        try (FileInputStream in = new FileInputStream(f); FileChannel ch = in.getChannel()) {
+            int n = (int) ((ch.size() - start) / RECORD_SIZE);
+            if (n <= 0) return 0;
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, start, (long) n * RECORD_SIZE);
+            int delivered = 0, before = -1;
+            for (int i = 0, p = 0; i < n; i++, p += RECORD_SIZE) {
+                if (!isValid(map, p)) continue;
+                long ts = map.getLong(p);
+                if (ts < from) { before = p; continue; }
+                if (ts >= to) break;
+                if (before >= 0) { deliver(map, before, sink); delivered++; before = -1; }
+                deliver(map, p, sink);
+                delivered++;
+            }
+            if (before >= 0) { deliver(map, before, sink); delivered++; }
+            return delivered;
+        }
+    }
+
+    private static void deliver(ByteBuffer b, int p, Sink sink) {
+        sink.onEvent(b.getLong(p), b.get(p + 8) == 1, b.getInt(p + 12), flaps(b, p));
+    }
+
+    /** Suppressed-transition count of the record at {@code p}. */
+    static int flaps(ByteBuffer b, int p) { return b.getShort(p + 10) & 0xFFFF; }
+
+    /** Sanity check of the record at {@code p}: plausible time, state 0|1, zero flags, non-negative ssid id. */
+    static boolean isValid(ByteBuffer b, int p) {
+        long ts = b.getLong(p);
+        byte st = b.get(p + 8);
+        return ts >= MIN_TS && ts < MAX_TS && (st == 0 || st == 1) && b.get(p + 9) == 0 && b.getInt(p + 12) >= 0;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.overlaywifi;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Page-at-a-time random access to the event history – archived segments then the
+ * active log – seen as one array of fixed-width {@link EventLog} records.
+ *
+ * Only the per-file record counts are kept; a page is read on demand with one
+ * positional read per file it touches. The files are opened once, so a rotation
+ * while the pages are in use does not disturb them; records appended afterwards
+ * are not seen. A {@link Filter} narrows the rows to one SSID using per-page match
+ * counts, so memory stays bounded by the number of pages, not records.
+ * Not thread-safe – meant for one background reader.
+ */
+public final class EventPages implements Closeable {
+
+    public static final int PAGE = 256;
+
+    /** Decoded records of one page; {@link #valid} is false for damaged records. */
+    public static final class Page {
+        public final long[]    time      = new long[PAGE];
+        public final boolean[] connected = new boolean[PAGE];
+        public final int[]     ssid      = new int[PAGE];
+        public final int[]     flaps     = new int[PAGE];
+        public final boolean[] valid     = new boolean[PAGE];
+        public int             size;
+    }
+
+    /** Rows of one SSID: row r lives on the first page whose running match count exceeds r. */
+    public static final class Filter {
+        public final int ssidId;
+        private final int[] prefix;      // prefix[p] = matches on pages before p
+
+        private Filter(int ssidId, int[] prefix) { this.ssidId = ssidId; this.prefix = prefix; }
+
+        public int size() { return prefix[prefix.length - 1]; }
+
+        /** Page holding filtered row {@code row}. */
+        public int page(int row) {
+            int lo = 0, hi = prefix.length - 1;        // last p with prefix[p] ≤ row
+            while (lo + 1 < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (prefix[mid] <= row) lo = mid; else hi = mid;
+            }
+            return lo;
+        }
+
+        /** Index among the page's matches of filtered row {@code row}. */
+        public int rank(int row) { return row - prefix[page(row)]; }
+
+        /** First filtered row at or after record {@code index}, given that record's page. */
+        public int rowAt(int index, Page page) {
+            int p = index / PAGE, r = prefix[Math.min(p, prefix.length - 1)];
+            for (int k = 0; k < index % PAGE && k < page.size; k++) if (EventPages.matches(page, k, ssidId)) r++;
+            return r;
+        }
+
+        public boolean matches(Page page, int k) { return EventPages.matches(page, k, ssidId); }
+    }
+
+    private final List<FileChannel> channels = new ArrayList<>();
+    private final List<Long>        starts   = new ArrayList<>();   // first global record of each file
+    private final ByteBuffer        buf      = ByteBuffer.allocateDirect(PAGE * EventLog.RECORD_SIZE);
+    private final ByteBuffer        one      = ByteBuffer.allocate(8);
+    private final int               size;
+
+    /** Snapshot of {@code files}, oldest first; missing or headerless files are skipped. */
+    public EventPages(List<File> files) throws IOException {
+        long total = 0;
+        for (File f : files) {
+            if (f.length() < EventLog.HEADER_SIZE) continue;
+            FileChannel ch = new FileInputStream(f).getChannel();
+            long n = (ch.size() - EventLog.HEADER_SIZE) / EventLog.RECORD_SIZE;
+            if (n <= 0) { ch.close(); continue; }
+            channels.add(ch);
+            starts.add(total);
+            total += n;
+        }
+        starts.add(total);
+        size = (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    /** Number of records. */
+    public int size()  { return size; }
+    public int pages() { return (size + PAGE - 1) / PAGE; }
+
+    /** Read page {@code p} into {@code out} (reused) and return it. */
+    public Page read(int p, Page out) throws IOException {
+        long from = (long) p * PAGE, to = Math.min(size, from + PAGE);
+        out.size = (int) Math.max(0, to - from);
+        int k = 0;
+        for (int f = file(from); k < out.size; f++) {
+            long first = starts.get(f), end = Math.min(to, starts.get(f + 1));
+            long g = from + k;
+            buf.clear().limit((int) ((end - g) * EventLog.RECORD_SIZE));
+            long pos = EventLog.HEADER_SIZE + (g - first) * EventLog.RECORD_SIZE;
+            while (buf.hasRemaining() && channels.get(f).read(buf, pos + buf.position()) > 0) {}
+            for (int q = 0; q < buf.position(); q += EventLog.RECORD_SIZE, k++) {
+                out.valid[k]     = EventLog.isValid(buf, q);
+                out.time[k]      = buf.getLong(q);
+                out.connected[k] = buf.get(q + 8) == 1;
+                out.ssid[k]      = buf.getInt(q + 12);
+                out.flaps[k]     = EventLog.flaps(buf, q);
+            }
+            if (buf.hasRemaining()) { out.size = k; break; }   // file shrank under us
+        }
+        return out;
+    }
+
+    /** Index of the first record with time ≥ {@code t} (binary search; assumes time order). */
+    public int indexOf(long t) throws IOException {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timeAt(mid) < t) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Scan every page once and count the records of {@code ssidId} (NONE = disconnected). */
+    public Filter filter(int ssidId) throws IOException {
+        int[] prefix = new int[pages() + 1];
+        Page page = new Page();
+        for (int p = 0; p < pages(); p++) {
+            read(p, page);
+            int n = 0;
+            for (int k = 0; k < page.size; k++) if (matches(page, k, ssidId)) n++;
+            prefix[p + 1] = prefix[p] + n;
+        }
+        return new Filter(ssidId, prefix);
+    }
+
+    @Override public void close() {
+        for (FileChannel ch : channels) try { ch.close(); } catch (IOException ignored) {}
+        channels.clear();
+    }
+
+    /* ---------- helpers ---------- */
+
+    private static boolean matches(Page page, int k, int ssidId) {
+        return page.valid[k] && (ssidId == SsidDictionary.NONE ? !page.connected[k] : page.connected[k] && page.ssid[k] == ssidId);
+    }
+
+    private long timeAt(int i) throws IOException {
+        int f = file(i);
+        one.clear();
+        long pos = EventLog.HEADER_SIZE + (i - starts.get(f)) * EventLog.RECORD_SIZE;
+        while (one.hasRemaining() && channels.get(f).read(one, pos + one.position()) > 0) {}
+        return one.getLong(0);
+    }
+
+    /** File holding global record {@code i}. */
+    private int file(long i) {
+        int lo = 0, hi = channels.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (starts.get(mid) <= i) lo = mid; else hi = mid - 1;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.overlaywifi;
+
+import java.util.Arrays;
+
+/**
+ * In-memory connection history as growable parallel arrays, sorted by time.
+ * Gives the timeline renderer and lookups indexed, unboxed access to events;
+ * SSIDs are kept as {@link SsidDictionary} ids and resolved only for display.
+ * Not thread-safe.
+ */
+public final class EventSeries {
+
+    private long[]    times     = new long[256];
+    private boolean[] connected = new boolean[256];
+    private int[]     ssids     = new int[256];     // SsidDictionary ids
+    private int       size;
+    private boolean   sorted    = true;
+
+    public void add(long t, boolean c, int ssidId) {
+        if (size == times.length) {
+            int cap = size * 2;
+            times     = Arrays.copyOf(times, cap);
+            connected = Arrays.copyOf(connected, cap);
+            ssids     = Arrays.copyOf(ssids, cap);
+        }
+        if (size > 0 && t < times[size - 1]) sorted = false;
+        times[size] = t; connected[size] = c; ssids[size] = ssidId;
+        size++;
+    }
+
+    public void clear() {
+        size   = 0;
+        sorted = true;
+    }
+
+    public int     size()             { return size; }
+    public boolean isEmpty()          { return size == 0; }
+    public long    time(int i)        { return times[i]; }
+    public boolean connected(int i)   { return connected[i]; }
+    public int     ssid(int i)        { return ssids[i]; }
+    public long    first()            { return times[0]; }
+    public long    last()             { return times[size - 1]; }
+
+    /** Index of the first event with time ≥ t ({@link #size()} if none); O(log n). */
+    public int lowerBound(long t) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < t) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Interval lookup: index of the event whose segment [t_i, t_i+1) contains {@code t},
+     * i.e. the last event at or before t; -1 if t precedes all events. O(log n).
+     */
+    public int indexAt(long t) {
+        return t == Long.MAX_VALUE ? size - 1 : lowerBound(t + 1) - 1;
+    }
+
+    /**
+     * Remove the events before {@code t} except the last of them, which sets the
+     * state at {@code t}; call on a sorted series.
+     */
+    public void dropBefore(long t) {
+        int n = lowerBound(t) - 1;
+        if (n <= 0) return;
+        size -= n;
+        System.arraycopy(times,     n, times,     0, size);
+        System.arraycopy(connected, n, connected, 0, size);
+        System.arraycopy(ssids,     n, ssids,     0, size);
+    }
+
+    /** Restore time order after out-of-order appends (clock jumps); no-op when already sorted. */
+    public void sort() {
+        if (sorted) return;
+        Integer[] idx = new Integer[size];
+        for (int i = 0; i < size; i++) idx[i] = i;
+        Arrays.sort(idx, (a, b) -> Long.compare(times[a], times[b]));   // stable
+        long[] t = new long[times.length]; boolean[] c = new boolean[times.length]; int[] s = new int[times.length];
+        for (int i = 0; i < size; i++) { t[i] = times[idx[i]]; c[i] = connected[idx[i]]; s[i] = ssids[idx[i]]; }
+        times = t; connected = c; ssids = s;
+        sorted = true;
+    }
+}
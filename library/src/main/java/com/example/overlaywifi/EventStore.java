@@ -0,0 +1,221 @@
+package com.example.overlaywifi;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide in-memory connection history, shared by the service that
+ * records events and the views that show them.
+ *
+ * On first use the history is read once on the store's own thread: the whole
+ * active log plus the archived segments of the last {@link #HISTORY_MS}. After
+ * that the writer {@link #append}s each committed event; nothing re-reads the
+ * disk. Subscribers get the full history once and then only the appended
+ * tail, each delivery a fresh {@link EventSeries} they own, run on the
+ * {@link Executor} they passed in (the main looper for views). All mutation
+ * happens on the store thread, so deliveries to one subscriber arrive in
+ * order and never overlap a load. Fixed windows outside that history are
+ * {@link #read} from disk on the same thread and delivered the same way.
+ */
+public final class EventStore {
+
+    /** Receives history on the subscriber's executor. */
+    public interface Listener {
+        /**
+         * @param events new events, oldest first; owned by the listener
+         * @param full   true for the first delivery, which carries the whole history
+         */
+        void onEvents(EventSeries events, boolean full);
+    }
+
+    /** Live registration; {@link #close} stops deliveries, including ones already queued. */
+    public final class Subscription implements AutoCloseable {
+        private final Listener listener;
+        private final Executor executor;
+        private volatile boolean closed;
+
+        private Subscription(Listener l, Executor e) { listener = l; executor = e; }
+
+        private void deliver(EventSeries s, boolean full) {
+            executor.execute(() -> { if (!closed) listener.onEvents(s, full); });
+        }
+
+        @Override public void close() {
+            closed = true;
+            thread.execute(() -> subscribers.remove(this));
+        }
+    }
+
+    /** Archived history loaded on start: the widest zoom of the timeline. */
+    public static final long HISTORY_MS = TimelineViewport.MAX_SPAN_MS;
+
+    /** Events older than {@link #HISTORY_MS} are dropped once this many have piled up past it. */
+    private static final long TRIM_SLACK_MS = 24 * 60 * 60_000L;
+
+    private static final Metrics.Histogram LOAD    = Metrics.histogram("store.load");
+    private static final Metrics.Histogram READ    = Metrics.histogram("store.read");
+    private static final Metrics.Counter   APPENDS = Metrics.counter("store.appends");
+
+    private static final Map<String, EventStore> sShared = new HashMap<>();
+
+    private final File           log;
+    private final EventArchive   archive;
+    private final SsidDictionary names;
+    private final ExecutorService thread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "event-store");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // store thread only
+    private final EventSeries        events      = new EventSeries();
+    private final List<Subscription> subscribers = new ArrayList<>();
+
+    private EventStore(File log, EventArchive archive, SsidDictionary names) {
+        this.log     = log;
+        this.archive = archive;
+        this.names   = names;
+        thread.execute(this::load);
+    }
+
+    /**
+     * The process-wide store for {@code log}, created (and its load started) on
+     * first use; later calls ignore {@code archive} and {@code names}.
+     */
+    public static EventStore shared(File log, EventArchive archive, SsidDictionary names) {
+        synchronized (sShared) {
+            EventStore s = sShared.get(log.getAbsolutePath());
+            if (s == null) sShared.put(log.getAbsolutePath(), s = new EventStore(log, archive, names));
+            return s;
+        }
+    }
+
+    /* ---------- writer side (any thread) ---------- */
+
+    /**
+     * A committed event; never blocks, the name is interned on the store thread.
+     * Disconnected events carry {@link SsidDictionary#NONE}, as in the log. An event
+     * equal in time, state and network to one already held is dropped: the initial
+     * load can read from disk what the writer also appends.
+     */
+    public void append(long t, boolean connected, String ssid) {
+        thread.execute(() -> {
+            int id = SsidDictionary.NONE;
+            if (connected) {
+                try { id = names.intern(ssid); } catch (IOException ignored) {}
+            }
+            for (int i = events.lowerBound(t); i < events.size() && events.time(i) == t; i++) {
+                if (events.connected(i) == connected && events.ssid(i) == id) return;
+            }
+            events.add(t, connected, id);
+            events.sort();
+            trim();
+            APPENDS.inc();
+            for (Subscription s : subscribers) {
+                EventSeries tail = new EventSeries();
+                tail.add(t, connected, id);
+                s.deliver(tail, false);
+            }
+        });
+    }
+
+    /* ---------- reader side (any thread) ---------- */
+
+    /** Deliver the whole history to {@code l} on {@code executor}, then every appended event. */
+    public Subscription subscribe(Listener l, Executor executor) {
+        Subscription s = new Subscription(l, executor);
+        thread.execute(() -> {
+            if (s.closed) return;
+            subscribers.add(s);
+            s.deliver(copy(), true);
+        });
+        return s;
+    }
+
+    /**
+     * Read [from, to) from disk and deliver it to {@code l} on {@code executor} once,
+     * sorted, as a full delivery; no appends follow. Close the returned subscription
+     * to drop a read that is no longer wanted.
+     */
+    public Subscription read(long from, long to, Listener l, Executor executor) {
+        Subscription s = new Subscription(l, executor);
+        thread.execute(() -> {
+            if (s.closed) return;
+            long t0 = System.nanoTime();
+            EventSeries out = new EventSeries();
+            try {
+                readWindow(from, from, to, out);
+            } catch (IOException ignored) {
+                // show what was read
+            }
+            out.sort();
+            READ.since(t0);
+            s.deliver(out, true);
+        });
+        return s;
+    }
+
+    /** Block until everything queued so far (the initial load, appends) is done; for tests and tools. */
+    public void awaitIdle() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        thread.execute(done::countDown);
+        done.await();
+    }
+
+    /* ---------- store thread ---------- */
+
+    private void load() {
+        long t0 = System.nanoTime();
+        try {
+            readWindow(Long.MIN_VALUE, System.currentTimeMillis() - HISTORY_MS, Long.MAX_VALUE, events);
+        } catch (IOException ignored) {
+            // keep what was read; appends still arrive
+        }
+        events.sort();
+        LOAD.since(t0);
+    }
+
+    /**
+     * Append [from, to) to {@code out} in time order: hourly rollups where the raw
+     * segments have been compacted, raw segments oldest first, then the active log
+     * from {@code logFrom}. The log is read before its stamp is taken, so a segment
+     * rotated out meanwhile is read twice rather than missed.
+     */
+    private void readWindow(long logFrom, long from, long to, EventSeries out) throws IOException {
+        EventSeries head = new EventSeries();
+        try {
+            EventLog.readRange(log, logFrom, to, head::add);
+            long created = EventLog.created(log);
+            long end     = created != 0 ? Math.min(created, to) : to;
+            archive.readRollupEvents(from, end, out::add);
+            for (File seg : archive.segments(from, end)) {
+                EventLog.readRange(seg, from, to, out::add);
+            }
+        } finally {
+            for (int i = 0; i < head.size(); i++) out.add(head.time(i), head.connected(i), head.ssid(i));
+        }
+    }
+
+    /**
+     * Drop what has aged out of {@link #HISTORY_MS}, keeping the event that sets the state
+     * at the cutoff; amortized to once per {@link #TRIM_SLACK_MS} past that edge event.
+     */
+    private void trim() {
+        long cutoff = System.currentTimeMillis() - HISTORY_MS;
+        if (events.size() > 1 && events.time(1) < cutoff - TRIM_SLACK_MS) events.dropBefore(cutoff);
+    }
+
+    private EventSeries copy() {
+        EventSeries s = new EventSeries();
+        for (int i = 0; i < events.size(); i++) s.add(events.time(i), events.connected(i), events.ssid(i));
+        return s;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.overlaywifi;
+
+/**
+ * Debounce with hysteresis between raw link reports and the logged connection state.
+ *
+ * A raw state that differs from the committed one becomes pending and is only
+ * committed once it has held for the hold time of its direction – separate
+ * for up and down, so a marginal link can be made slower to count as gained
+ * than as lost or vice versa. Reversions before that are suppressed; the
+ * number of suppressed transitions is handed over with the next commit, whose
+ * time is when the committed state began, not when it was confirmed.
+ * Repeated reports of the same state (e.g. capability updates) are no-ops.
+ * Not thread-safe – owned by one looper.
+ */
+public final class FlapFilter {
+
+    /** Hold times before a state counts as stable. */
+    public static final class Policy {
+        final long upMs, downMs;
+
+        public Policy(long upMs, long downMs) {
+            this.upMs   = Math.max(0, upMs);
+            this.downMs = Math.max(0, downMs);
+        }
+
+        /** Connections must last 3 s, outages 2 s. */
+        public static final Policy DEFAULT = new Policy(3_000, 2_000);
+        /** Commit every change at once (no suppression). */
+        public static final Policy NONE    = new Policy(0, 0);
+    }
+
+    public static final int MAX_FLAPS = 0xFFFF;       // fits the log's u16 counter
+
+    private final Policy policy;
+
+    private boolean state;               // committed
+    private long    since;               // start of the committed state
+    private int     flaps;               // suppressed transitions handed over with the last commit
+
+    private boolean pending;             // a different raw state is waiting out its hold time
+    private long    pendingSince;
+    private int     raw;                 // raw transitions since the last commit
+
+    public FlapFilter(Policy policy) { this.policy = policy; }
+
+    /** Adopt {@code state} as committed at {@code t} without filtering (e.g. at start-up). */
+    public void reset(long t, boolean state) {
+        this.state = state;
+        since   = t;
+        flaps   = 0;
+        pending = false;
+        raw     = 0;
+    }
+
+    /**
+     * Feed one raw report.
+     * @return time at which {@link #poll} can commit the pending state, or -1 if none is pending
+     */
+    public long offer(long t, boolean up) {
+        boolean last = pending ? !state : state;
+        if (up != last) {
+            raw++;
+            pending = up != state;
+            pendingSince = t;
+        }
+        return deadline();
+    }
+
+    /**
+     * Commit the pending state if it has held long enough by {@code now}.
+     * @return true if {@link #state}, {@link #since} and {@link #flaps} now describe a new commit
+     */
+    public boolean poll(long now) {
+        if (!pending || now < deadline()) return false;
+        state   = !state;
+        since   = pendingSince;
+        flaps   = Math.min(MAX_FLAPS, raw - 1);
+        pending = false;
+        raw     = 0;
+        return true;
+    }
+
+    /**
+     * Drop whatever has not been committed (e.g. at shutdown): the committed state
+     * stays, a pending one is forgotten.
+     * @return raw transitions since the last commit, all of them suppressed now
+     */
+    public int discard() {
+        int n = raw;
+        pending = false;
+        raw     = 0;
+        return n;
+    }
+
+    public boolean state() { return state; }
+    public long    since() { return since; }
+    public int     flaps() { return flaps; }
+
+    private long deadline() {
+        return pending ? pendingSince + (state ? policy.downMs : policy.upMs) : -1;
+    }
+}
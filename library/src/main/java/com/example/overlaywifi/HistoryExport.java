@@ -0,0 +1,371 @@
+package com.example.overlaywifi;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Streams the connection history (the {@link EventArchive} rollups, then the event
+ * log files) and the RSSI history (an {@link RssiStore} directory) into one export,
+ * in constant memory: records are read file by file and written through a
+ * fixed-size buffer, never collected.
+ *
+ * History past the raw window only survives as hourly rollups; it is exported as
+ * "hourly" rows – state changes rebuilt from the hours, with approximate times and
+ * no flap counts – ahead of the exact "event" rows.
+ *
+ * Formats:
+ *   CSV       type,timestamp,connected,ssid,bssid,flaps,rssi,interval_ms – one row per hourly row, event or sample
+ *   JSONL     one object per line, {"type":"hourly",…}, {"type":"event",…} or {"type":"rssi",…}
+ *   COLUMNAR  binary, all big-endian:
+ *     header  magic "WCX1" (i32) | version u16
+ *     block   kind u8 | rows i32 | payload length i32 | payload
+ *       kind 1 (SSID names)  rows × (u16 length | UTF-8); ids count on from 1 across blocks
+ *       kind 4 (BSSID names) the same for BSSIDs
+ *       kind 5 (hourly)      laid out like events, flaps always 0
+ *       kind 2 (events)      Δt column | connected bitset ⌈rows/8⌉ B | ssid id column | flaps column
+ *       kind 3 (rssi)        Δt column | rssi column (zig-zag) | interval column (100 ms units)
+ *                            | ssid id column | bssid id column
+ *     Δt is a zig-zag varint from the previous row of the same kind (the first row of
+ *     a section from 0); id, flaps and interval columns are varints. Blocks hold ≤ {@link #CHUNK} rows.
+ * Progress counts input bytes. {@link #cancel} may be called from any thread.
+ */
+public final class HistoryExport {
+
+    public enum Format {
+        CSV("text/csv", "csv"), JSONL("application/x-ndjson", "jsonl"), COLUMNAR("application/octet-stream", "wcx");
+
+        public final String mime, extension;
+
+        Format(String mime, String extension) { this.mime = mime; this.extension = extension; }
+    }
+
+    /** Called on the exporting thread after each chunk. */
+    public interface Progress {
+        void onProgress(long done, long total);
+    }
+
+    public static final int CHUNK = 4096;           // rows per columnar block and per progress report
+
+    private static final int BUFFER   = 64 * 1024;
+    private static final int MAGIC    = 0x57435831;  // "WCX1"
+    private static final int VERSION  = 4;       // 2: flaps column, 3: network ids of samples, 4: hourly blocks
+    private static final int MAX_NAME = 1024;        // bytes; SSIDs are at most 32
+    private static final int NAMES = 1, EVENTS = 2, RSSI = 3, BSSID_NAMES = 4, HOURLY = 5;
+
+    private final EventArchive   archive;
+    private final List<File>     eventFiles;
+    private final File           rssiDir;
+    private final SsidDictionary ssids, bssids;
+    private volatile boolean     cancelled;
+
+    /**
+     * @param archive    source of the rollups that precede the event logs
+     * @param eventFiles event logs, oldest first (archived segments, then the active log)
+     */
+    public HistoryExport(EventArchive archive, List<File> eventFiles, File rssiDir, SsidDictionary ssids, SsidDictionary bssids) {
+        this.archive    = archive;
+        this.eventFiles = eventFiles;
+        this.rssiDir    = rssiDir;
+        this.ssids      = ssids;
+        this.bssids     = bssids;
+    }
+
+    public void cancel()         { cancelled = true; }
+    public boolean isCancelled() { return cancelled; }
+
+    /**
+     * Write the whole history to {@code out} (not closed).
+     * @return false if cancelled part-way – the output is then incomplete
+     */
+    public boolean write(Format format, OutputStream out, Progress progress) throws IOException {
+        File[] rssi = RssiStore.segments(rssiDir);
+        long total = archive.rollupBytes();
+        for (File f : eventFiles) total += f.length();
+        for (File f : rssi)       total += f.length();
+
+        Rows rows = format == Format.COLUMNAR ? new Columnar(out) : new Text(out, format == Format.JSONL);
+        long[] done = {0};
+        int[]  n    = {0};
+        final long all = total;
+        try {
+            rows.begin(ssids, bssids);
+            archive.readRollupEvents(Long.MIN_VALUE, Long.MAX_VALUE, (t, c, id) -> {
+                rows.event(t, c, id, 0, true);
+                if (++n[0] % CHUNK == 0) step(progress, done[0], all);
+            });
+            done[0] = archive.rollupBytes();
+            for (File f : eventFiles) {
+                long before = done[0];
+                EventLog.read(f, new EventLog.Sink() {
+                    @Override public void onEvent(long t, boolean c, int id) { onEvent(t, c, id, 0); }
+                    @Override public void onEvent(long t, boolean c, int id, int flaps) {
+                        rows.event(t, c, id, flaps, false);
+                        done[0] += EventLog.RECORD_SIZE;
+                        if (++n[0] % CHUNK == 0) step(progress, done[0], all);
+                    }
+                });
+                done[0] = before + f.length();
+            }
+            for (File f : rssi) {
+                RssiStore.read(f, Long.MIN_VALUE, new RssiStore.Sink() {
+                    @Override public void onSample(long t, int dBm, int iv) { onSample(t, dBm, iv, 0, 0); }
+                    @Override public void onSample(long t, int dBm, int iv, int ssidId, int bssidId) {
+                        rows.rssi(t, dBm, iv, ssidId, bssidId);
+                        if (++n[0] % CHUNK == 0) step(progress, done[0], all);
+                    }
+                });
+                done[0] += f.length();
+                step(progress, done[0], all);
+            }
+            rows.finish();
+        } catch (CancellationException e) {
+            return false;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        progress.onProgress(total, total);
+        return true;
+    }
+
+    private void step(Progress progress, long done, long total) {
+        if (cancelled) throw new CancellationException();
+        progress.onProgress(done, total);
+    }
+
+    /* ---------- writers ---------- */
+
+    /** Row sink of one format; methods throw {@link UncheckedIOException} from inside the readers. */
+    private interface Rows {
+        void begin(SsidDictionary ssids, SsidDictionary bssids);
+        /** @param hourly rebuilt from a rollup rather than logged */
+        void event(long t, boolean connected, int ssidId, int flaps, boolean hourly);
+        void rssi(long t, int dBm, int intervalMs, int ssidId, int bssidId);
+        void finish();
+    }
+
+    /** CSV and JSON Lines, formatted into one reused line buffer. */
+    private static final class Text implements Rows {
+        private final OutputStream  out;
+        private final boolean       json;
+        private final StringBuilder line = new StringBuilder(128);
+        private final byte[]        buf  = new byte[BUFFER];
+        private int                 pos;
+        private SsidDictionary      ssids, bssids;
+
+        Text(OutputStream out, boolean json) { this.out = out; this.json = json; }
+
+        @Override public void begin(SsidDictionary ssids, SsidDictionary bssids) {
+            this.ssids  = ssids;
+            this.bssids = bssids;
+            if (!json) { line.append("type,timestamp,connected,ssid,bssid,flaps,rssi,interval_ms\n"); emit(); }
+        }
+
+        @Override public void event(long t, boolean connected, int ssidId, int flaps, boolean hourly) {
+            String name = connected ? ssids.name(ssidId) : "";
+            String type = hourly ? "hourly" : "event";
+            if (json) {
+                line.append("{\"type\":\"").append(type).append("\",\"t\":").append(t).append(",\"connected\":").append(connected);
+                if (connected) { line.append(",\"ssid\":"); jsonString(name); }
+                if (flaps > 0)   line.append(",\"flaps\":").append(flaps);
+                line.append("}\n");
+            } else {
+                line.append(type).append(',').append(t).append(',').append(connected ? 1 : 0).append(',');
+                csvField(name);
+                line.append(",,");
+                if (!hourly) line.append(flaps);
+                line.append(",,\n");
+            }
+            emit();
+        }
+
+        @Override public void rssi(long t, int dBm, int intervalMs, int ssidId, int bssidId) {
+            String ssid  = ssidId  == SsidDictionary.NONE ? "" : ssids.name(ssidId);
+            String bssid = bssidId == SsidDictionary.NONE ? "" : bssids.name(bssidId);
+            if (json) {
+                line.append("{\"type\":\"rssi\",\"t\":").append(t).append(",\"rssi\":").append(dBm)
+                    .append(",\"interval\":").append(intervalMs);
+                if (!ssid.isEmpty())  { line.append(",\"ssid\":");  jsonString(ssid); }
+                if (!bssid.isEmpty()) { line.append(",\"bssid\":"); jsonString(bssid); }
+                line.append("}\n");
+            } else {
+                line.append("rssi,").append(t).append(",,");
+                csvField(ssid);
+                line.append(',');
+                csvField(bssid);
+                line.append(",,").append(dBm).append(',').append(intervalMs).append('\n');
+            }
+            emit();
+        }
+
+        @Override public void finish() { drain(); }
+
+        private void csvField(String s) {
+            boolean quote = false;
+            for (int i = 0; i < s.length() && !quote; i++) {
+                char c = s.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) { line.append(s); return; }
+            line.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"') line.append('"');
+                line.append(c);
+            }
+            line.append('"');
+        }
+
+        private void jsonString(String s) {
+            line.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"' || c == '\\')  line.append('\\').append(c);
+                else if (c < 0x20)          line.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 15, 16));
+                else                        line.append(c);
+            }
+            line.append('"');
+        }
+
+        /** UTF-8 encode the line into the output buffer and reset it. */
+        private void emit() {
+            for (int i = 0; i < line.length(); i++) {
+                int c = line.charAt(i);
+                if (Character.isHighSurrogate((char) c) && i + 1 < line.length()) c = Character.toCodePoint((char) c, line.charAt(++i));
+                if (pos + 4 > buf.length) drain();
+                if (c < 0x80)         { buf[pos++] = (byte) c; }
+                else if (c < 0x800)   { buf[pos++] = (byte) (0xC0 | c >> 6);  buf[pos++] = (byte) (0x80 | c & 0x3F); }
+                else if (c < 0x10000) { buf[pos++] = (byte) (0xE0 | c >> 12); buf[pos++] = (byte) (0x80 | c >> 6 & 0x3F); buf[pos++] = (byte) (0x80 | c & 0x3F); }
+                else                  { buf[pos++] = (byte) (0xF0 | c >> 18); buf[pos++] = (byte) (0x80 | c >> 12 & 0x3F);
+                                        buf[pos++] = (byte) (0x80 | c >> 6 & 0x3F); buf[pos++] = (byte) (0x80 | c & 0x3F); }
+            }
+            line.setLength(0);
+        }
+
+        private void drain() {
+            try { out.write(buf, 0, pos); } catch (IOException e) { throw new UncheckedIOException(e); }
+            pos = 0;
+        }
+    }
+
+    /** Column blocks of up to {@link #CHUNK} rows, each column buffered separately. */
+    private static final class Columnar implements Rows {
+        private final DataOutputStream out;
+        private final Column time = new Column(CHUNK * 10), a = new Column(CHUNK * 10), b = new Column(CHUNK * 5), c = new Column(CHUNK * 5), d = new Column(CHUNK * 5);
+        private int  kind, rows;
+        private long prevT;
+
+        Columnar(OutputStream out) { this.out = new DataOutputStream(new BufferedOutputStream(out, BUFFER)); }
+
+        @Override public void begin(SsidDictionary ssids, SsidDictionary bssids) {
+            try {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                names(NAMES, ssids);
+                names(BSSID_NAMES, bssids);
+            } catch (IOException e) { throw new UncheckedIOException(e); }
+            kind = HOURLY;
+        }
+
+        /** Name blocks of one table: always at least one, possibly empty. */
+        private void names(int kind, SsidDictionary dict) throws IOException {
+            int count = dict.size(), first = 1;
+            for (int id = 1; id <= count; id++) {
+                byte[] utf = dict.name(id).getBytes(StandardCharsets.UTF_8);
+                int len = Math.min(utf.length, MAX_NAME);
+                if (a.size + 2 + len > a.bytes.length) { block(kind, id - first, a); first = id; }
+                a.u16(len);
+                a.put(utf, len);
+            }
+            block(kind, count + 1 - first, a);
+        }
+
+        @Override public void event(long t, boolean connected, int ssidId, int flaps, boolean hourly) {
+            section(hourly ? HOURLY : EVENTS);
+            time.varint(zigzag(t - prevT));
+            if (connected) a.bytes[rows >> 3] |= (byte) (1 << (rows & 7));
+            b.varint(connected ? ssidId : SsidDictionary.NONE);
+            c.varint(flaps);
+            prevT = t;
+            if (++rows == CHUNK) flush();
+        }
+
+        /** Start blocks of another kind; Δt restarts from 0. */
+        private void section(int next) {
+            if (next == kind) return;
+            flush();
+            kind  = next;
+            prevT = 0;
+        }
+
+        @Override public void rssi(long t, int dBm, int intervalMs, int ssidId, int bssidId) {
+            section(RSSI);
+            time.varint(zigzag(t - prevT));
+            a.varint(zigzag(dBm));
+            b.varint(Math.max(0, intervalMs) / 100);
+            c.varint(ssidId);
+            d.varint(bssidId);
+            prevT = t;
+            if (++rows == CHUNK) flush();
+        }
+
+        @Override public void finish() {
+            flush();
+            try { out.flush(); } catch (IOException e) { throw new UncheckedIOException(e); }
+        }
+
+        /** Write the pending rows as one block and reset the columns. */
+        private void flush() {
+            if (rows == 0) return;
+            if (kind != RSSI) a.size = (rows + 7) >> 3;
+            try {
+                out.writeByte(kind);
+                out.writeInt(rows);
+                out.writeInt(time.size + a.size + b.size + c.size + d.size);
+                out.write(time.bytes, 0, time.size);
+                out.write(a.bytes, 0, a.size);
+                out.write(b.bytes, 0, b.size);
+                out.write(c.bytes, 0, c.size);
+                out.write(d.bytes, 0, d.size);
+            } catch (IOException e) { throw new UncheckedIOException(e); }
+            time.clear(); a.clear(); b.clear(); c.clear(); d.clear();
+            rows = 0;
+        }
+
+        private void block(int kind, int rows, Column payload) throws IOException {
+            out.writeByte(kind);
+            out.writeInt(rows);
+            out.writeInt(payload.size);
+            out.write(payload.bytes, 0, payload.size);
+            payload.clear();
+        }
+    }
+
+    /** Fixed-capacity byte column. */
+    private static final class Column {
+        final byte[] bytes;
+        int          size;
+
+        Column(int capacity) { bytes = new byte[capacity]; }
+
+        void varint(long v) {
+            while ((v & ~0x7FL) != 0) { bytes[size++] = (byte) ((v & 0x7F) | 0x80); v >>>= 7; }
+            bytes[size++] = (byte) v;
+        }
+
+        void u16(int v)               { bytes[size++] = (byte) (v >> 8); bytes[size++] = (byte) v; }
+        void put(byte[] src, int len) { System.arraycopy(src, 0, bytes, size, len); size += len; }
+
+        /** Zero the used part too – the event bitset is or'ed into a clean column. */
+        void clear() { Arrays.fill(bytes, 0, size, (byte) 0); size = 0; }
+    }
+
+    private static long zigzag(long v) { return (v << 1) ^ (v >> 63); }
+}
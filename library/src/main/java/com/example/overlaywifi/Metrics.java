@@ -0,0 +1,141 @@
+package com.example.overlaywifi;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide hot-path metrics: lock-free counters and fixed-bucket latency
+ * histograms, cheap enough to stay on in release builds.
+ *
+ * Call sites look a metric up once (by name, e.g. {@code "journal.write"}) and
+ * keep the reference; recording is then a couple of atomic adds, no locks and
+ * no allocation. Histogram buckets are powers of two in microseconds – bucket
+ * {@code b} holds durations in [2^(b-1), 2^b) µs, bucket 0 everything under
+ * 1 µs, the last one everything from about 67 s up – so percentiles are upper
+ * bounds within a factor of two, which is plenty to tell a 2 ms write from a
+ * 200 ms one. {@link #dump} renders everything as text for {@code dumpsys} and
+ * the debug panel.
+ */
+public final class Metrics {
+
+    /** Monotonic count of something. */
+    public static final class Counter {
+        private final LongAdder n = new LongAdder();
+
+        public void inc()       { n.increment(); }
+        public void add(long k) { n.add(k); }
+        public long get()       { return n.sum(); }
+
+        void reset() { n.reset(); }
+    }
+
+    /** Latency distribution in {@link #BUCKETS} power-of-two microsecond buckets. */
+    public static final class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder       sumNs   = new LongAdder();
+        private final AtomicLong      maxNs   = new AtomicLong();
+
+        /** Record one duration. */
+        public void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            long us = nanos / 1_000;
+            buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(us)));
+            sumNs.add(nanos);
+            if (nanos > maxNs.get()) maxNs.accumulateAndGet(nanos, Math::max);
+        }
+
+        /** Record the time since {@code startNanos}, a {@link System#nanoTime()} reading. */
+        public void since(long startNanos) { record(System.nanoTime() - startNanos); }
+
+        public long count() {
+            long n = 0;
+            for (int b = 0; b < BUCKETS; b++) n += buckets.get(b);
+            return n;
+        }
+
+        public long maxNanos()  { return maxNs.get(); }
+        public long meanNanos() { long n = count(); return n == 0 ? 0 : sumNs.sum() / n; }
+
+        /** Upper bound of the bucket holding quantile {@code q} (0…1), capped at the max; 0 if empty. */
+        public long percentileNanos(double q) {
+            long[] c = new long[BUCKETS];
+            long n = 0;
+            for (int b = 0; b < BUCKETS; b++) n += c[b] = buckets.get(b);
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * n)), seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += c[b];
+                if (seen >= rank) return Math.min((1L << b) * 1_000, maxNanos());
+            }
+            return maxNanos();
+        }
+
+        void reset() {
+            for (int b = 0; b < BUCKETS; b++) buckets.set(b, 0);
+            sumNs.reset();
+            maxNs.set(0);
+        }
+    }
+
+    static final int BUCKETS = 28;          // up to 2^26 µs ≈ 67 s, then open-ended
+
+    private static final Map<String, Counter>   counters   = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static volatile long since = System.currentTimeMillis();
+
+    private Metrics() {}
+
+    /* ---------- registry ---------- */
+
+    /** The counter named {@code name}, created on first use. */
+    public static Counter counter(String name) {
+        Counter c = counters.get(name);
+        return c != null ? c : counters.computeIfAbsent(name, k -> new Counter());
+    }
+
+    /** The histogram named {@code name}, created on first use. */
+    public static Histogram histogram(String name) {
+        Histogram h = histograms.get(name);
+        return h != null ? h : histograms.computeIfAbsent(name, k -> new Histogram());
+    }
+
+    /** Zero every metric and restart the {@link #since} time. */
+    public static void reset() {
+        for (Counter c : counters.values()) c.reset();
+        for (Histogram h : histograms.values()) h.reset();
+        since = System.currentTimeMillis();
+    }
+
+    /** Wall-clock time of the last {@link #reset} (or of class load). */
+    public static long since() { return since; }
+
+    /* ---------- text dump ---------- */
+
+    /** Counters, then histograms as count / p50 / p90 / p99 / max / mean in ms, sorted by name. */
+    public static StringBuilder dump(StringBuilder sb) {
+        int w = 8;
+        for (String k : counters.keySet())   w = Math.max(w, k.length());
+        for (String k : histograms.keySet()) w = Math.max(w, k.length());
+        String name = "%-" + w + "s";
+
+        sb.append("counters\n");
+        for (Map.Entry<String, Counter> e : new TreeMap<>(counters).entrySet())
+            sb.append(String.format(Locale.US, "  " + name + " %10d%n", e.getKey(), e.getValue().get()));
+        sb.append(String.format(Locale.US, "latency (ms)%n  " + name + " %8s %8s %8s %8s %8s %8s%n",
+                "", "count", "p50", "p90", "p99", "max", "mean"));
+        for (Map.Entry<String, Histogram> e : new TreeMap<>(histograms).entrySet()) {
+            Histogram h = e.getValue();
+            sb.append(String.format(Locale.US, "  " + name + " %8d %8.3f %8.3f %8.3f %8.3f %8.3f%n",
+                    e.getKey(), h.count(), ms(h.percentileNanos(0.5)), ms(h.percentileNanos(0.9)),
+                    ms(h.percentileNanos(0.99)), ms(h.maxNanos()), ms(h.meanNanos())));
+        }
+        return sb;
+    }
+
+    private static double ms(long nanos) { return nanos / 1e6; }
+}
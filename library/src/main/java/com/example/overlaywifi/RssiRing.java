@@ -0,0 +1,121 @@
+package com.example.overlaywifi;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size ring of RSSI samples kept in parallel primitive arrays.
+ *
+ * One writer thread calls {@link #add}; any number of readers call {@link #copy}
+ * or walk a reusable {@link View} without locks and without allocating per sample.
+ * The writer publishes each sample by bumping the volatile {@code head} after
+ * filling the slot. The arrays hold {@code SLACK} more slots than readers are
+ * ever shown, so a sample a reader is looking at cannot be overwritten unless
+ * the writer adds {@code SLACK} samples in the meantime; readers re-check
+ * {@code head} afterwards and retry in that (practically impossible at ≤1 Hz) case.
+ * That re-check is a seqlock validation, so the slot loads before it must not
+ * drift past it: slots are read with volatile semantics (atomic arrays) rather
+ * than plain loads, which would only be ordered by a load fence – and
+ * {@code VarHandle} fences are not available before Android 13.
+ */
+public final class RssiRing {
+
+    private static final int SLACK = 64;
+
+    private final int    window;       // samples visible to readers
+    private final int    capacity;     // window + SLACK
+    private final AtomicLongArray    times;      // wall-clock millis
+    private final AtomicIntegerArray rssi;       // dBm, 0 when disconnected
+    private final AtomicIntegerArray interval;   // sampling period in effect when taken, ms
+    private final AtomicIntegerArray ssid;       // SsidDictionary id of the network sampled, 0 = none
+
+    private volatile long head;        // samples ever written; next slot = head % capacity
+
+    public RssiRing(int window) {
+        this.window   = window;
+        this.capacity = window + SLACK;
+        this.times    = new AtomicLongArray(capacity);
+        this.rssi     = new AtomicIntegerArray(capacity);
+        this.interval = new AtomicIntegerArray(capacity);
+        this.ssid     = new AtomicIntegerArray(capacity);
+    }
+
+    /* ---------- writer (single thread only) ---------- */
+
+    public void add(long t, int dBm, int intervalMs, int ssidId) {
+        long h = head;
+        int  i = (int) (h % capacity);
+        times.set(i, t);
+        rssi.set(i, Math.max(Byte.MIN_VALUE, Math.min(dBm, Byte.MAX_VALUE)));
+        interval.set(i, intervalMs);
+        ssid.set(i, ssidId);
+        head = h + 1;                  // publish
+    }
+
+    /* ---------- readers (any thread) ---------- */
+
+    /** Number of samples currently visible (≤ window). */
+    public int size() { return (int) Math.min(head, window); }
+
+    /**
+     * Copy samples with {@code from ≤ t < to}, oldest first, into the caller's arrays.
+     * @return number copied (bounded by the shorter output array)
+     */
+    public int copy(long from, long to, long[] outT, byte[] outRssi) {
+        return copy(from, to, outT, outRssi, null);
+    }
+
+    /** As {@link #copy(long, long, long[], byte[])}, also filling each sample's interval (ms) if {@code outInterval} ≠ null. */
+    public int copy(long from, long to, long[] outT, byte[] outRssi, int[] outInterval) {
+        int max = Math.min(outT.length, outRssi.length);
+        if (outInterval != null) max = Math.min(max, outInterval.length);
+        while (true) {
+            long h     = head;
+            long first = Math.max(0, h - window);
+            long lo    = lowerBound(first, h, from);
+            int  n     = 0;
+            for (long k = lo; k < h && n < max; k++) {
+                int i = (int) (k % capacity);
+                long t = times.get(i);
+                if (t >= to) break;
+                outT[n]    = t;
+                outRssi[n] = (byte) rssi.get(i);
+                if (outInterval != null) outInterval[n] = interval.get(i);
+                n++;
+            }
+            if (head - first < capacity) return n;   // nothing we read was overwritten
+        }
+    }
+
+    /** Reusable, allocation-free read-only window onto the ring. */
+    public final class View {
+        private long first, end;
+
+        /** Pin the current contents; indices below refer to this state. */
+        public View refresh() {
+            end   = head;
+            first = Math.max(0, end - window);
+            return this;
+        }
+
+        public int  size()          { return (int) (end - first); }
+        public long time(int k)     { return times.get((int) ((first + k) % capacity)); }
+        public int  rssi(int k)     { return rssi.get((int) ((first + k) % capacity)); }
+        public int  interval(int k) { return interval.get((int) ((first + k) % capacity)); }
+        public int  ssid(int k)     { return ssid.get((int) ((first + k) % capacity)); }
+
+        /** False if the writer has since overwritten part of this view – refresh() and re-read. */
+        public boolean isValid() { return head - first < capacity; }
+    }
+
+    public View view() { return new View().refresh(); }
+
+    /** First sample index in [lo, hi) whose time is ≥ t (times are non-decreasing). */
+    private long lowerBound(long lo, long hi, long t) {
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (times.get((int) (mid % capacity)) < t) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+}
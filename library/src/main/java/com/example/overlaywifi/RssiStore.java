@@ -0,0 +1,246 @@
+package com.example.overlaywifi;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * On-disk RSSI history as a directory of small delta-encoded segments.
+ *
+ * Segment file {@code seg-<key>.rsi}, key = its base time – unless the clock went
+ * backwards, then one past the previous segment's key – so name order is write
+ * order and a new segment never reuses an existing name:
+ *   header  magic "RSI2" (i32) | base time ms (i64)
+ *   sample  varint Δt ms | varint (zig-zag Δrssi dBm << 1 | net) | varint interval (100 ms units)
+ *           [ | varint ssid id | varint bssid id ]   only when net = 1
+ * Network ids come from {@link SsidDictionary} tables and are written only when they
+ * change (from 0 at the segment start), so a steady 10 s sample still costs 4 bytes.
+ * Version-1 segments ("RSI1", no net bit) are still read, with ids 0, but never appended to.
+ * Segments roll over at {@link #MAX_SEGMENT_BYTES} or {@link #MAX_SEGMENT_AGE_MS};
+ * segments older than {@link #RETENTION_MS} are deleted.
+ * {@link #restore} decodes only the newest segment(s) covering the requested window
+ * and trims a torn final record so appends can continue in place; {@link #read}
+ * streams any segment read-only for exports.
+ * Not thread-safe – owned by the sampler thread (the static readers excepted).
+ */
+public final class RssiStore {
+
+    /** Receives restored samples, oldest first. */
+    public interface Sink {
+        void onSample(long t, int rssi, int intervalMs);
+
+        /** Called instead of the three-argument form; override to see the network ids. */
+        default void onSample(long t, int rssi, int intervalMs, int ssidId, int bssidId) {
+            onSample(t, rssi, intervalMs);
+        }
+    }
+
+    private static final int  MAGIC              = 0x52534932;               // "RSI2"
+    private static final int  MAGIC_V1           = 0x52534931;               // "RSI1"
+    private static final int  HEADER_SIZE        = 12;
+    private static final int  MAX_SEGMENT_BYTES  = 64 * 1024;
+    private static final long MAX_SEGMENT_AGE_MS = 8 * 60 * 60 * 1000L;      // 8 h
+    private static final long RETENTION_MS       = 30L * 24 * 60 * 60 * 1000; // 30 days
+    private static final String PREFIX = "seg-", SUFFIX = ".rsi";
+
+    private final File   dir;
+    private final byte[] rec = new byte[5 * 10];   // worst case five 10-byte varints
+
+    private FileOutputStream out;       // active segment, null until the first append
+    private File   active;
+    private long   base, size;          // active segment's base time (from its header) and length
+    private long   prevT;
+    private int    prevRssi, prevSsid, prevBssid;
+
+    public RssiStore(File dir) { this.dir = dir; }
+
+    /* ---------- writing ---------- */
+
+    /**
+     * Append one sample taken on network {@code ssidId}/{@code bssidId} (0 = none),
+     * rolling to a new segment when the active one is full or old.
+     */
+    public void append(long t, int rssi, int intervalMs, int ssidId, int bssidId) throws IOException {
+        if (out == null || size >= MAX_SEGMENT_BYTES || t - base >= MAX_SEGMENT_AGE_MS || t < prevT) roll(t);
+        boolean net = ssidId != prevSsid || bssidId != prevBssid;
+        int n = 0;
+        n = putVarint(rec, n, t - prevT);
+        n = putVarint(rec, n, zigzag(rssi - prevRssi) << 1 | (net ? 1 : 0));
+        n = putVarint(rec, n, Math.max(0, intervalMs) / 100);
+        if (net) {
+            n = putVarint(rec, n, ssidId);
+            n = putVarint(rec, n, bssidId);
+        }
+        out.write(rec, 0, n);
+        size     += n;
+        prevT     = t;
+        prevRssi  = rssi;
+        prevSsid  = ssidId;
+        prevBssid = bssidId;
+    }
+
+    public void close() {
+        if (out != null) try { out.close(); } catch (IOException ignored) {}
+        out = null;
+    }
+
+    private void roll(long t) throws IOException {
+        close();
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        File[] segs = segments();
+        long key = segs.length == 0 ? t : Math.max(t, keyOf(segs[segs.length - 1]) + 1);
+        active = new File(dir, PREFIX + key + SUFFIX);
+        out    = new FileOutputStream(active);
+        ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putLong(t);
+        out.write(h.array());
+        base = prevT = t;
+        prevRssi = prevSsid = prevBssid = 0;
+        size = HEADER_SIZE;
+        prune(t - RETENTION_MS);
+    }
+
+    private void prune(long olderThan) {
+        File[] segs = segments();
+        // a segment may be dropped once the next one starts before the cut-off
+        for (int i = 0; i + 1 < segs.length && keyOf(segs[i + 1]) < olderThan; i++) {
+            //noinspection ResultOfMethodCallIgnored
+            segs[i].delete();
+        }
+    }
+
+    /* ---------- reading ---------- */
+
+    /**
+     * Deliver samples with {@code t ≥ since} from the newest segments only (normally one,
+     * two when the tail segment starts inside the window), and make the newest segment
+     * the append target so nothing is rewritten.
+     * @return number of samples delivered
+     */
+    public int restore(long since, Sink sink) throws IOException {
+        close();
+        File[] segs = segments();
+        if (segs.length == 0) return 0;
+        int from = segs.length - 1;
+        while (from > 0 && keyOf(segs[from]) > since) from--;
+
+        int n = 0;
+        for (int i = from; i < segs.length; i++) n += decode(segs[i], since, sink, i == segs.length - 1);
+        return n;
+    }
+
+    /** Decode one segment; for a current-version tail segment also adopt its state for appending. */
+    private int decode(File f, long since, Sink sink, boolean tail) throws IOException {
+        byte[] b = load(f);
+        long[] end = new long[5];
+        int n = parse(b, since, sink, end);
+        if (n < 0) return 0;
+
+        if (tail && ByteBuffer.wrap(b).getInt(0) == MAGIC) {
+            int good = (int) end[2];
+            if (good < b.length) {                       // torn record from a crash mid-write
+                try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) { raf.setLength(good); }
+            }
+            active    = f;
+            base      = ByteBuffer.wrap(b).getLong(4);
+            size      = good;
+            prevT     = good == HEADER_SIZE ? base : end[0];
+            prevRssi  = good == HEADER_SIZE ? 0 : (int) end[1];
+            prevSsid  = (int) end[3];
+            prevBssid = (int) end[4];
+            out       = new FileOutputStream(f, true);
+        }
+        return n;
+    }
+
+    /** Segment files of the store in {@code dir}, in the order they were written. */
+    public static File[] segments(File dir) {
+        File[] segs = dir.listFiles((d, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (segs == null) return new File[0];
+        Arrays.sort(segs, (a, c) -> Long.compare(keyOf(a), keyOf(c)));
+        return segs;
+    }
+
+    /**
+     * Read-only decode of one segment, safe alongside the writer: a record still
+     * being appended is simply not seen. Holds one segment (≤ 64 KiB) in memory.
+     * @return number of samples delivered
+     */
+    public static int read(File seg, long since, Sink sink) throws IOException {
+        return Math.max(0, parse(load(seg), since, sink, new long[5]));
+    }
+
+    /* ---------- helpers ---------- */
+
+    private File[] segments() { return segments(dir); }
+
+    private static byte[] load(File f) throws IOException {
+        try (FileInputStream in = new FileInputStream(f)) {
+            byte[] b = new byte[(int) f.length()];
+            int r = 0, k;
+            while (r < b.length && (k = in.read(b, r, b.length - r)) > 0) r += k;
+            return r < b.length ? Arrays.copyOf(b, r) : b;
+        }
+    }
+
+    /**
+     * Deliver the samples of segment bytes {@code b} with {@code t ≥ since}; {@code end}
+     * receives the last time, rssi, the length of the intact prefix and the last ssid and bssid ids.
+     * @return number of samples delivered, -1 if {@code b} is not a segment
+     */
+    private static int parse(byte[] b, long since, Sink sink, long[] end) {
+        int magic = b.length < HEADER_SIZE ? 0 : ByteBuffer.wrap(b).getInt(0);
+        if (magic != MAGIC && magic != MAGIC_V1) return -1;
+        boolean v1 = magic == MAGIC_V1;
+
+        long t = ByteBuffer.wrap(b).getLong(4);
+        int  rssi = 0, ssid = 0, bssid = 0, n = 0, p = HEADER_SIZE, good = HEADER_SIZE;
+        long[] v = new long[1];
+        while (p < b.length) {
+            int q = p;
+            if ((q = getVarint(b, q, v)) < 0) break; long dt = v[0];
+            if ((q = getVarint(b, q, v)) < 0) break; long dr = v[0];
+            if ((q = getVarint(b, q, v)) < 0) break; int  iv = (int) v[0] * 100;
+            int s = ssid, bs = bssid;
+            if (!v1 && (dr & 1) != 0) {
+                if ((q = getVarint(b, q, v)) < 0) break; s  = (int) v[0];
+                if ((q = getVarint(b, q, v)) < 0) break; bs = (int) v[0];
+            }
+            t += dt; rssi += unzigzag(v1 ? dr : dr >>> 1); ssid = s; bssid = bs; p = good = q;
+            if (t >= since) { sink.onSample(t, rssi, iv, ssid, bssid); n++; }
+        }
+        end[0] = t; end[1] = rssi; end[2] = good; end[3] = ssid; end[4] = bssid;
+        return n;
+    }
+
+    /** Sort key from the file name: the base time, or later after a backward clock jump. */
+    private static long keyOf(File f) {
+        String n = f.getName();
+        try { return Long.parseLong(n.substring(PREFIX.length(), n.length() - SUFFIX.length())); }
+        catch (NumberFormatException e) { return 0; }
+    }
+
+    private static long zigzag(long v)   { return (v << 1) ^ (v >> 63); }
+    private static int  unzigzag(long v) { return (int) ((v >>> 1) ^ -(v & 1)); }
+
+    private static int putVarint(byte[] b, int p, long v) {
+        while ((v & ~0x7FL) != 0) { b[p++] = (byte) ((v & 0x7F) | 0x80); v >>>= 7; }
+        b[p++] = (byte) v;
+        return p;
+    }
+
+    /** Decode a varint at {@code p} into {@code out[0]}; returns the next position or -1 if truncated. */
+    private static int getVarint(byte[] b, int p, long[] out) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (p >= b.length) return -1;
+            byte x = b[p++];
+            v |= (long) (x & 0x7F) << shift;
+            if (x >= 0) { out[0] = v; return p; }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.overlaywifi;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only name table backing {@link EventLog}'s ssid id column and the network
+ * ids of {@link RssiStore} samples (a second table holds BSSIDs). Records and
+ * in-memory series keep only the small id; names are resolved for display.
+ * File is UTF-8, one name per line; id = 1-based line number, 0 = no network ("-").
+ * Writers in one process must go through {@link #shared} so ids are never handed
+ * out twice.
+ */
+public final class SsidDictionary {
+
+    public static final int    NONE      = 0;
+    public static final String NONE_NAME = "-";
+
+    private final File                 file;
+    private final List<String>         names = new ArrayList<>();
+    private final Map<String, Integer> ids   = new HashMap<>();
+
+    // last name interned from bytes – log lines mostly repeat the previous SSID
+    private byte[] lastBytes = new byte[0];
+    private int    lastId    = -1;
+
+    private static final Map<String, SsidDictionary> sShared = new HashMap<>();
+
+    private SsidDictionary(File file) { this.file = file; }
+
+    /** The process-wide table for {@code f}, loaded on first use; sees every name interned in-process. */
+    public static SsidDictionary shared(File f) {
+        synchronized (sShared) {
+            SsidDictionary d = sShared.get(f.getAbsolutePath());
+            if (d == null) sShared.put(f.getAbsolutePath(), d = load(f));
+            return d;
+        }
+    }
+
+    /** Load a private snapshot of {@code f} (missing file = empty table). */
+    public static SsidDictionary load(File f) {
+        SsidDictionary d = new SsidDictionary(f);
+        if (f.exists()) {
+            try (BufferedReader br = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(f), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = br.readLine()) != null) d.put(line);
+            } catch (IOException ignored) {}
+        }
+        return d;
+    }
+
+    /** Id of {@code ssid}, appending it to the file when first seen. */
+    public synchronized int intern(String ssid) throws IOException {
+        if (ssid == null || ssid.isEmpty() || ssid.equals(NONE_NAME)) return NONE;
+        String s = ssid.replace('\n', ' ').replace('\r', ' ');
+        Integer id = ids.get(s);
+        if (id != null) return id;
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write((s + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return put(s);
+    }
+
+    /** {@link #intern(String)} for UTF-8 bytes; allocates only when the name differs from the previous call. */
+    public synchronized int intern(byte[] b, int off, int len) throws IOException {
+        if (lastId >= 0 && sameAsLast(b, off, len)) return lastId;
+        int id = intern(new String(b, off, len, StandardCharsets.UTF_8));
+        lastBytes = Arrays.copyOfRange(b, off, off + len);
+        lastId    = id;
+        return id;
+    }
+
+    private boolean sameAsLast(byte[] b, int off, int len) {
+        if (len != lastBytes.length) return false;
+        for (int i = 0; i < len; i++) if (lastBytes[i] != b[off + i]) return false;
+        return true;
+    }
+
+    /** Name for {@code id}; unknown ids resolve to "-". */
+    public synchronized String name(int id) {
+        return id > 0 && id <= names.size() ? names.get(id - 1) : NONE_NAME;
+    }
+
+    public synchronized int size() { return names.size(); }
+
+    private int put(String s) {
+        names.add(s);
+        ids.put(s, names.size());
+        return names.size();
+    }
+}
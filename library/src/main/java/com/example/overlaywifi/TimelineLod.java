@@ -0,0 +1,123 @@
+package com.example.overlaywifi;
+
+import java.util.Arrays;
+
+/**
+ * Level-of-detail reduction of an {@link EventSeries} to pixel columns.
+ *
+ * Every column is classified ON, OFF or MIXED (more than one state inside
+ * the column, i.e. flapping); adjacent columns of one class are merged into
+ * a single run and emitted as horizontal segments ready for
+ * {@code Canvas.drawLines(float[])} with a bar-high stroke. At most one
+ * marker is kept per column, carrying the number of state flips in it.
+ * Output size is bounded by the width in pixels, not by the event count.
+ * Buffers are reused between frames.
+ */
+public final class TimelineLod {
+
+    public static final int ON = 1, OFF = 2, MIXED = 3;
+
+    // per class: x1,y,x2,y quadruples for drawLines
+    private final float[][] lines     = new float[4][];
+    private final int[]     lineCount = new int[4];
+
+    // one marker per column: x1,y1,x2,y2 for drawLines, plus event index and flip count
+    private float[] markerLines = new float[0];
+    private float[] markerX     = new float[0];
+    private int[]   markerEvent = new int[0];
+    private int[]   markerFlaps = new int[0];
+    private int     markers;
+
+    private byte[] mask  = new byte[0];
+    private int[]  flips = new int[0];
+
+    /**
+     * Rebuild for {@code width} columns covering {@code start + x / pxPerMs},
+     * looking only at events {@code [from, to)} (callers pass the visible slice).
+     * @param end     time at which the last event's segment stops
+     * @param barY    vertical centre of the bars
+     * @param markTop / markBottom vertical extent of the markers
+     */
+    public void build(EventSeries ev, int from, int to, long start, long end, float pxPerMs, int width,
+                      float barY, float markTop, float markBottom) {
+        ensure(width);
+        Arrays.fill(mask, 0, width, (byte) 0);
+        Arrays.fill(flips, 0, width, 0);
+        Arrays.fill(lineCount, 0);
+        markers = 0;
+        if (width <= 0) return;
+
+        int n = ev.size(), lastMarkCol = -1;
+        for (int i = Math.max(0, from); i < Math.min(to, n); i++) {
+            long t0 = ev.time(i), t1 = i + 1 < n ? ev.time(i + 1) : end;
+            if (t0 >= end) break;
+            if (t1 < start) continue;
+            float x1 = (t0 - start) * pxPerMs, x2 = (t1 - start) * pxPerMs;
+            if (x1 >= width) break;
+            int bit = ev.connected(i) ? ON : OFF;
+            int c1 = clamp((int) Math.floor(x1), width);
+            int c2 = Math.max(c1, clamp((int) Math.ceil(x2) - 1, width));
+            for (int c = c1; c <= c2; c++) mask[c] |= bit;   // segments are disjoint ⇒ O(width) overall
+
+            if (t0 >= start) {
+                if (i > 0 && ev.connected(i) != ev.connected(i - 1)) flips[c1]++;
+                if (c1 != lastMarkCol) {
+                    int k = markers++ * 4;
+                    markerLines[k] = markerLines[k + 2] = x1;
+                    markerLines[k + 1] = markTop;
+                    markerLines[k + 3] = markBottom;
+                    markerX[markers - 1]     = x1;
+                    markerEvent[markers - 1] = i;
+                    lastMarkCol = c1;
+                }
+            }
+        }
+        for (int m = 0; m < markers; m++) markerFlaps[m] = flips[clamp((int) Math.floor(markerX[m]), width)];
+
+        // merge equal neighbouring columns into runs
+        int runStart = 0, cls = mask[0];
+        for (int c = 1; c <= width; c++) {
+            int k = c < width ? mask[c] : -1;
+            if (k == cls) continue;
+            if (cls != 0) emit(cls, runStart, c, barY);
+            runStart = c;
+            cls = k;
+        }
+    }
+
+    /* ---------- results ---------- */
+
+    /** drawLines buffer of class {@link #ON}, {@link #OFF} or {@link #MIXED}. */
+    public float[] lines(int cls)     { return lines[cls]; }
+    /** Number of floats used in {@link #lines(int)}. */
+    public int     lineCount(int cls) { return lineCount[cls]; }
+
+    public float[] markerLines()      { return markerLines; }
+    public int     markerCount()      { return markers; }
+    public float   markerX(int m)     { return markerX[m]; }
+    public int     markerEvent(int m) { return markerEvent[m]; }
+    /** State flips inside the marker's column; >1 means the link was flapping there. */
+    public int     markerFlaps(int m) { return markerFlaps[m]; }
+
+    /* ---------- helpers ---------- */
+
+    private void emit(int cls, float x1, float x2, float y) {
+        float[] b = lines[cls];
+        int n = lineCount[cls];
+        if (b == null || n + 4 > b.length) b = lines[cls] = Arrays.copyOf(b == null ? new float[0] : b, Math.max(64, (n + 4) * 2));
+        b[n] = x1; b[n + 1] = y; b[n + 2] = x2; b[n + 3] = y;
+        lineCount[cls] = n + 4;
+    }
+
+    private void ensure(int width) {
+        if (mask.length >= width) return;
+        mask        = new byte[width];
+        flips       = new int[width];
+        markerLines = new float[width * 4];
+        markerX     = new float[width];
+        markerEvent = new int[width];
+        markerFlaps = new int[width];
+    }
+
+    private static int clamp(int c, int width) { return c < 0 ? 0 : Math.min(c, width - 1); }
+}
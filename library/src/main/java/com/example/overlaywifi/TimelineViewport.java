@@ -0,0 +1,115 @@
+package com.example.overlaywifi;
+
+/**
+ * Time ↔ pixel mapping for the visible window of the timeline.
+ *
+ * The view is only ever as wide as the screen; this class tracks which slice
+ * of the data extent it shows ({@code viewStart} at x = 0, {@code pxPerMs}
+ * scale) and exposes it as a pixel scroll position for flinging. The window
+ * may scroll until the end of the data reaches the middle of the view, and
+ * stays pinned to the live end while it is there. Zooming only changes the
+ * scale, so the view re-lays out from the events already in memory.
+ */
+public final class TimelineViewport {
+
+    /** Zoom limits as the time span shown across the full width. */
+    public static final long MIN_SPAN_MS = 5 * 60_000L;
+    public static final long MAX_SPAN_MS = 14 * 24 * 3_600_000L;
+
+    private long   dataStart, dataEnd;
+    private int    width;
+    private double pxPerMs = 200.0 / 3_600_000L;     // 200 px per hour
+    private double viewStart;
+    private boolean pinnedToEnd = true;
+
+    /* ---------- configuration ---------- */
+
+    /** New data extent; keeps following the live end if the window was there. */
+    public void setData(long start, long end) {
+        dataStart = start;
+        dataEnd   = Math.max(start, end);
+        if (pinnedToEnd) viewStart = maxStart(); else clamp();
+    }
+
+    public void setWidth(int w) {
+        width = w;
+        if (pinnedToEnd) viewStart = maxStart(); else clamp();
+    }
+
+    public double pxPerMs() { return pxPerMs; }
+    public int    width()   { return width; }
+
+    /* ---------- mapping ---------- */
+
+    /** Time at the left edge. */
+    public long  start()          { return (long) viewStart; }
+    /** Time at the right edge. */
+    public long  end()            { return (long) (viewStart + width / pxPerMs); }
+    /** Left edge on the absolute pixel grid (time × scale) that cached tiles align to. */
+    public double originPx()      { return viewStart * pxPerMs; }
+    public long  timeAt(float x)  { return (long) (viewStart + x / pxPerMs); }
+    public float xFor(long t)     { return (float) ((t - viewStart) * pxPerMs); }
+
+    /* ---------- zoom ---------- */
+
+    /**
+     * Scale by {@code factor}, keeping the time under {@code focusX} in place.
+     * The visible span stays within [{@link #MIN_SPAN_MS}, {@link #MAX_SPAN_MS}].
+     * @return false if the scale did not change (limit reached or no width yet)
+     */
+    public boolean zoom(double factor, float focusX) {
+        if (width <= 0) return false;
+        double next = Math.max(width / (double) MAX_SPAN_MS, Math.min(pxPerMs * factor, width / (double) MIN_SPAN_MS));
+        if (next == pxPerMs) return false;
+        double focus = viewStart + focusX / pxPerMs;
+        pxPerMs   = next;
+        viewStart = focus - focusX / pxPerMs;
+        clamp();
+        return true;
+    }
+
+    /** Fit [start, end] to the width as far as the zoom limits allow, left-aligned. */
+    public void show(long start, long end) {
+        if (width > 0) {
+            double span = Math.max(MIN_SPAN_MS, Math.min(end - start, MAX_SPAN_MS));
+            pxPerMs = width / span;
+        }
+        viewStart = start;
+        clamp();
+    }
+
+    /* ---------- scrolling in pixels ---------- */
+
+    /** Current position in [0, {@link #scrollRange()}]. */
+    public int scrollX()          { return (int) Math.round((viewStart - dataStart) * pxPerMs); }
+    public int scrollRange()      { return (int) Math.round((maxStart() - dataStart) * pxPerMs); }
+
+    public void setScrollX(int x) {
+        viewStart = dataStart + x / pxPerMs;
+        clamp();
+    }
+
+    /** Move content by {@code dx} pixels (positive = later times); false if already at the limit. */
+    public boolean scrollBy(float dx) {
+        double before = viewStart;
+        viewStart += dx / pxPerMs;
+        clamp();
+        return viewStart != before;
+    }
+
+    public void scrollToEnd() {
+        viewStart   = maxStart();
+        pinnedToEnd = true;
+    }
+
+    private double maxStart() {
+        return Math.max(dataStart, dataEnd - (width / 2.0) / pxPerMs);
+    }
+
+    private void clamp() {
+        double max = maxStart();
+        if (viewStart < dataStart) viewStart = dataStart;
+        if (viewStart > max) viewStart = max;
+        pinnedToEnd = viewStart >= max;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.overlaywifi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ConnectivityStatsTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final long MIN = 60_000L, HOUR = 60 * MIN;
+
+    private SsidDictionary names() {
+        return SsidDictionary.shared(new File(tmp.getRoot(), "ssids.txt"));
+    }
+
+    @Test
+    public void oneInstancePerFile() throws IOException {
+        File file = new File(tmp.getRoot(), "stats.bin");
+        ConnectivityStats stats = ConnectivityStats.getInstance(file, names());
+        assertSame(stats, ConnectivityStats.getInstance(new File(tmp.getRoot(), "./stats.bin"), names()));
+        assertNotSame(stats, ConnectivityStats.getInstance(new File(tmp.getRoot(), "other.bin"), names()));
+    }
+
+    @Test
+    public void eventsAndSamplesAddUpPerDayAndNetwork() throws IOException {
+        File file = new File(tmp.getRoot(), "stats.bin");
+        ConnectivityStats stats = ConnectivityStats.getInstance(file, names());
+        int alpha = names().intern("alpha");
+        long day = stats.dayOf(System.currentTimeMillis()) - 5;
+        long t0  = stats.startOf(day) + 20 * HOUR;
+
+        stats.onEvent(t0, true, alpha);
+        stats.onSample(t0 + MIN, -60);
+        stats.onSample(t0 + 2 * MIN, -70);
+        stats.onSample(t0 + 3 * MIN, 0);                          // no reading: ignored
+        stats.onEvent(t0 + HOUR, false, SsidDictionary.NONE);
+        stats.onSample(t0 + HOUR + MIN, -50);                     // while down: ignored
+        stats.onEvent(t0 + HOUR + 10 * MIN, true, SsidDictionary.NONE);   // name still unknown
+        stats.onSsid(alpha);
+        long midnight = stats.startOf(day + 1);
+        stats.onEvent(midnight + HOUR, false, SsidDictionary.NONE);
+
+        ConnectivityStats.Summary a = stats.query(day, alpha, midnight + 2 * HOUR);
+        assertEquals(HOUR + (midnight - t0 - HOUR - 10 * MIN), a.upMs());   // up to midnight only
+        assertEquals(10 * MIN, a.downMs());
+        assertEquals(1, a.outages());
+        assertEquals(10 * MIN, a.meanOutageMs());
+        assertEquals(10 * MIN, a.maxOutageMs());
+        assertEquals(2, a.samples());
+        assertEquals(-65.0, a.rssiMean(), 0);
+        assertEquals(-70, a.rssiMin());
+        assertEquals(-60, a.rssiMax());
+        assertEquals(-70, a.rssiPercentile(0.5));
+        assertEquals(-60, a.rssiPercentile(1));
+
+        ConnectivityStats.Summary next = stats.query(day + 1, ConnectivityStats.ALL_SSIDS, midnight + 2 * HOUR);
+        assertEquals(HOUR, next.upMs());                         // the stretch split at local midnight
+        assertEquals(HOUR, next.downMs());                       // the open outage, up to the query time
+        assertEquals(1, next.outages());
+
+        stats.save(midnight + 2 * HOUR);
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            assertEquals(0x57535431, in.readInt());               // "WST1"
+            assertEquals(2, in.readShort());
+            assertEquals(2, in.readInt());                        // alpha on both days
+            in.readLong();
+            assertEquals(alpha, in.readInt());                    // stored by id
+        }
+    }
+
+    @Test
+    public void versionOneNamesAreInternedOnLoad() throws IOException {
+        File file = new File(tmp.getRoot(), "v1.bin");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(0x57535431);
+            out.writeShort(1);
+            out.writeInt(1);
+            out.writeLong(20_000);
+            out.writeUTF("beta");
+            out.writeLong(HOUR); out.writeLong(0);
+            out.writeInt(0); out.writeInt(0);
+            out.writeLong(0); out.writeLong(0);
+            out.writeInt(0); out.writeLong(0);
+            out.writeByte(0); out.writeByte(0); out.writeByte(0);
+        }
+        ConnectivityStats stats = ConnectivityStats.getInstance(file, names());
+        int beta = names().intern("beta");
+        assertEquals(Collections.singletonList(beta), stats.ssids());
+        assertEquals(HOUR, stats.query(20_000, beta, 0).upMs());
+    }
+}
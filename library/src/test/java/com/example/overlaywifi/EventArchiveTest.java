@@ -0,0 +1,92 @@
+package com.example.overlaywifi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventArchiveTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final long HOUR = 3_600_000L, MIN = 60_000L;
+    private static final long T0   = 1_700_002_800_000L;           // on the hour
+
+    /** Write {t, connected ? 1 : 0, ssidId} records as the segment the active log created at {@code created} became. */
+    static File segment(File dir, long created, long[]... records) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(EventLog.HEADER_SIZE + records.length * EventLog.RECORD_SIZE);
+        EventLog.putHeader(buf, created);
+        for (long[] r : records) EventLog.putRecord(buf, r[0], r[1] == 1, (int) r[2], 0);
+        File f = new File(dir, "seg-" + created + ".bin");
+        try (FileOutputStream out = new FileOutputStream(f)) { out.write(buf.array()); }
+        return f;
+    }
+
+    private static List<long[]> events(EventArchive a, long from, long to) throws IOException {
+        List<long[]> out = new ArrayList<>();
+        a.readRollupEvents(from, to, (t, c, id) -> out.add(new long[]{t, c ? 1 : 0, id}));
+        return out;
+    }
+
+    @Test
+    public void rolledUpHoursReadBackAsStateChanges() throws IOException {
+        File dir = tmp.getRoot();
+        EventArchive a = new EventArchive(dir, EventArchive.Policy.DEFAULT);
+        File seg = segment(dir, T0,
+                new long[]{T0,                    1, 1},
+                new long[]{T0 + 30 * MIN,         0, 0},
+                new long[]{T0 + HOUR,             1, 1},       // up through the next two hours
+                new long[]{T0 + 3 * HOUR,         0, 0},
+                new long[]{T0 + 5 * HOUR,         1, 2},
+                new long[]{T0 + 5 * HOUR + 15 * MIN, 0, 0});
+        assertEquals(1, a.compact(System.currentTimeMillis(), T0 + 6 * HOUR));
+        assertFalse(seg.exists());
+        assertEquals(0, a.segments(Long.MIN_VALUE, Long.MAX_VALUE).size());
+
+        List<long[]> e = events(a, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(6, e.size());
+        assertArrayEquals(new long[]{T0,                       1, 1}, e.get(0));
+        assertArrayEquals(new long[]{T0 + 30 * MIN,            0, 0}, e.get(1));
+        assertArrayEquals(new long[]{T0 + HOUR,                1, 1}, e.get(2));
+        assertArrayEquals(new long[]{T0 + 3 * HOUR,            0, 0}, e.get(3));
+        assertArrayEquals(new long[]{T0 + 5 * HOUR,            1, 2}, e.get(4));
+        assertArrayEquals(new long[]{T0 + 5 * HOUR + 15 * MIN, 0, 0}, e.get(5));
+
+        assertEquals(2, events(a, T0 + 5 * HOUR, T0 + 6 * HOUR).size());
+    }
+
+    @Test
+    public void retentionRollsUpOldSegmentsThenExpiresTheRollups() throws IOException {
+        File dir = tmp.getRoot();
+        long day = 24 * HOUR, now = System.currentTimeMillis();
+        EventArchive a = new EventArchive(dir, new EventArchive.Policy(10 * day, 20 * day, 256 * 1024));
+        long old = now - 40 * day, mid = now - 25 * day, recent = now - 3 * day;
+        segment(dir, old,    new long[]{old,    1, 1}, new long[]{old + HOUR,    0, 0});
+        segment(dir, mid,    new long[]{mid,    1, 1}, new long[]{mid + HOUR,    0, 0});
+        segment(dir, recent, new long[]{recent, 1, 1}, new long[]{recent + HOUR, 0, 0});
+
+        // ends 25 d ago: past the raw window but not the rollup one
+        assertEquals(1, a.compact(now, now - day));
+        List<File> raw = a.segments(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(2, raw.size());
+        assertEquals(mid, EventLog.created(raw.get(0)));
+        for (File f : raw) assertTrue(EventIndex.fileFor(f).exists());
+        assertTrue(a.readRollups(Long.MIN_VALUE, Long.MAX_VALUE, (h, ms, n, id) -> {}) > 0);
+
+        // a rollup that ended more than 20 d ago goes; the raw segments stay
+        assertEquals(0, a.compact(now, now - day));
+        assertEquals(0, a.readRollups(Long.MIN_VALUE, Long.MAX_VALUE, (h, ms, n, id) -> {}));
+        assertEquals(2, a.segments(Long.MIN_VALUE, Long.MAX_VALUE).size());
+    }
+}
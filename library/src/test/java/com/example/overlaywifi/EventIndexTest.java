@@ -0,0 +1,59 @@
+package com.example.overlaywifi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventIndexTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final long T0   = 1_749_999_600_000L;      // on the hour
+    private static final long HOUR = 3_600_000L;
+
+    private static long offsetOf(int record) { return EventLog.HEADER_SIZE + (long) record * EventLog.RECORD_SIZE; }
+
+    /** Four records an hour for ten hours, written over any earlier log. */
+    private File log() throws IOException {
+        File log = new File(tmp.getRoot(), "events.bin");
+        long[][] r = new long[40][];
+        for (int i = 0; i < r.length; i++) r[i] = new long[]{T0 + i * HOUR / 4, i % 2, 0, 0};
+        EventLogTest.write(log, T0, r);
+        return log;
+    }
+
+    @Test
+    public void seekLandsOnTheBucketBeforeTheTarget() throws IOException {
+        File log = log();
+        EventIndex.rebuild(log);
+        assertTrue(EventIndex.fileFor(log).exists());
+
+        assertEquals(offsetOf(0),  EventIndex.seek(log, Long.MIN_VALUE));
+        assertEquals(offsetOf(0),  EventIndex.seek(log, T0));
+        assertEquals(offsetOf(16), EventIndex.seek(log, T0 + 5 * HOUR));       // the hour before, for the state at t
+        assertEquals(offsetOf(16), EventIndex.seek(log, T0 + 5 * HOUR + 1));
+        assertEquals(offsetOf(36), EventIndex.seek(log, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void aMissingOrForeignSidecarOnlyCostsAScan() throws IOException {
+        File log = log();
+        long expected = offsetOf(16);
+        assertEquals(expected, EventIndex.seek(log, T0 + 5 * HOUR));        // no sidecar
+
+        EventIndex.rebuild(log);
+        EventLogTest.write(log, T0 + 1, new long[]{T0 + 1, 1, 0, 0});      // log replaced under the sidecar
+        assertEquals(offsetOf(0), EventIndex.seek(log, T0 + 5 * HOUR));
+
+        try (FileOutputStream out = new FileOutputStream(EventIndex.fileFor(log))) { out.write(new byte[5]); }
+        log = log();
+        assertEquals(expected, EventIndex.seek(log, T0 + 5 * HOUR));
+    }
+}
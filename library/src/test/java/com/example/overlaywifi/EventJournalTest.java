@@ -0,0 +1,157 @@
+package com.example.overlaywifi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventJournalTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final long T0 = 1_750_000_000_000L;
+
+    private File log, ssids;
+
+    private EventJournal open(EventJournal.FlushPolicy policy) throws IOException {
+        log   = new File(tmp.getRoot(), "events.bin");
+        ssids = new File(tmp.getRoot(), "ssids.txt");
+        return new EventJournal(log, ssids, null,
+                new EventArchive(new File(tmp.getRoot(), "archive"), EventArchive.Policy.DEFAULT), policy);
+    }
+
+    /** {t, connected ? 1 : 0, ssidId, flaps} per record. */
+    private List<long[]> records() throws IOException {
+        List<long[]> out = new ArrayList<>();
+        EventLog.read(log, new EventLog.Sink() {
+            @Override public void onEvent(long t, boolean c, int id) {}
+            @Override public void onEvent(long t, boolean c, int id, int flaps) { out.add(new long[]{t, c ? 1 : 0, id, flaps}); }
+        });
+        return out;
+    }
+
+    @Test
+    public void closeFlushesEverythingQueued() throws IOException {
+        EventJournal j = open(EventJournal.FlushPolicy.everyRecords(100, false));
+        j.append(T0,          true,  "home", 0);
+        j.append(T0 + 1_000,  false, "home", 3);
+        j.append(T0 + 2_000,  true,  "work", 0);
+        j.close();
+
+        List<long[]> r = records();
+        assertEquals(3, r.size());
+        SsidDictionary names = SsidDictionary.load(ssids);
+        assertEquals("home", names.name((int) r.get(0)[2]));
+        assertEquals(SsidDictionary.NONE, r.get(1)[2]);          // disconnected events carry no network
+        assertEquals(3, r.get(1)[3]);
+        assertEquals("work", names.name((int) r.get(2)[2]));
+        assertEquals(0, j.dropped());
+    }
+
+    @Test
+    public void eventsRacingCloseAreEitherWrittenOrCounted() throws Exception {
+        EventJournal j = open(EventJournal.FlushPolicy.immediate(false));
+        int[] sent = {0};
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) { j.append(T0 + i, (i & 1) == 0, "home", 0); sent[0]++; }
+        });
+        producer.start();
+        Thread.sleep(1);
+        j.close();
+        producer.join();
+        assertFalse(j.append(T0 + 20_000, true, "home", 0));      // closed for good
+        assertEquals(sent[0] + 1, records().size() + j.dropped());
+    }
+
+    @Test
+    public void writerSurvivesIoErrorsAndCountsWhatTheyCost() throws Exception {
+        assertTrue(new File(tmp.getRoot(), "events.bin").mkdir());   // the log cannot be opened while this is a directory
+        EventJournal j = open(EventJournal.FlushPolicy.immediate(false));
+        j.append(T0, true, "home", 0);
+        for (int i = 0; i < 200 && j.dropped() == 0; i++) Thread.sleep(10);
+        assertEquals(1, j.dropped());
+
+        assertTrue(log.delete());
+        j.append(T0 + 1_000, false, "home", 0);
+        j.append(T0 + 2_000, true,  "home", 0);
+        j.close();
+
+        List<long[]> r = records();
+        assertEquals(2, r.size());
+        assertEquals(T0 + 1_000, r.get(0)[0]);
+        assertEquals(1, j.dropped());
+    }
+
+    @Test
+    public void reopeningCutsOffATornRecord() throws IOException {
+        EventJournal j = open(EventJournal.FlushPolicy.immediate(false));
+        j.append(T0, true, "home", 0);
+        j.close();
+        try (FileOutputStream out = new FileOutputStream(log, true)) {
+            out.write(new byte[]{1, 2, 3, 4, 5});                   // half a record, as a crash mid-write leaves it
+        }
+
+        j = open(EventJournal.FlushPolicy.immediate(false));
+        j.append(T0 + 1_000, false, "home", 0);
+        j.close();
+
+        List<long[]> r = records();
+        assertEquals(2, r.size());
+        assertEquals(T0 + 1_000, r.get(1)[0]);
+        assertEquals(EventLog.HEADER_SIZE + 2 * EventLog.RECORD_SIZE, log.length());
+    }
+
+    @Test
+    public void everyRecordsHoldsBackUntilTheBatchIsFull() throws Exception {
+        EventJournal j = open(EventJournal.FlushPolicy.everyRecords(3, false));
+        j.append(T0,         true,  "home", 0);
+        j.append(T0 + 1_000, false, "home", 0);
+        Thread.sleep(200);
+        assertEquals(0, records().size());
+
+        j.append(T0 + 2_000, true, "home", 0);
+        for (int i = 0; i < 200 && records().size() < 3; i++) Thread.sleep(10);
+        assertEquals(3, records().size());
+        j.close();
+    }
+
+    @Test
+    public void everyMillisWritesOnceTheDelayPasses() throws Exception {
+        EventJournal j = open(EventJournal.FlushPolicy.everyMillis(100, false));
+        j.append(T0, true, "home", 0);
+        for (int i = 0; i < 200 && records().isEmpty(); i++) Thread.sleep(10);
+        assertEquals(1, records().size());                       // written without close()
+        j.close();
+    }
+
+    @Test
+    public void rotatesIntoTheArchiveAtLocalMidnight() throws IOException {
+        ZoneId zone = ZoneId.systemDefault();
+        long day1 = LocalDate.now(zone).minusDays(3).atTime(12, 0).atZone(zone).toInstant().toEpochMilli();
+        long day2 = LocalDate.now(zone).minusDays(2).atTime(12, 0).atZone(zone).toInstant().toEpochMilli();
+        EventJournal j = open(EventJournal.FlushPolicy.immediate(false));
+        j.append(day1,          true,  "home", 0);
+        j.append(day1 + 60_000, false, "home", 0);
+        j.append(day2,          true,  "work", 0);
+        j.close();
+
+        EventArchive archive = new EventArchive(new File(tmp.getRoot(), "archive"), EventArchive.Policy.DEFAULT);
+        List<File> segs = archive.segments(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(1, segs.size());
+        assertEquals(day1, EventLog.created(segs.get(0)));
+        assertEquals(2, EventLog.read(segs.get(0), (t, c, id) -> {}));
+        assertEquals(day2, EventLog.created(log));
+        assertEquals(1, records().size());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.overlaywifi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class EventLogTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final long T0 = 1_750_000_000_000L;
+
+    /** Append {t, connected ? 1 : 0, ssidId, flaps} records to {@code f}, starting it with a header stamped {@code created} if non-zero. */
+    static void write(File f, long created, long[]... records) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(EventLog.HEADER_SIZE + records.length * EventLog.RECORD_SIZE);
+        if (created != 0) EventLog.putHeader(buf, created);
+        for (long[] r : records) EventLog.putRecord(buf, r[0], r[1] == 1, (int) r[2], (int) r[3]);
+        try (FileOutputStream out = new FileOutputStream(f, created == 0)) { out.write(buf.array(), 0, buf.position()); }
+    }
+
+    /** Records delivered by {@code read}, as {t, connected ? 1 : 0, ssidId, flaps}. */
+    private interface Read { int run(EventLog.Sink sink) throws IOException; }
+
+    private static List<long[]> collect(Read read) throws IOException {
+        List<long[]> out = new ArrayList<>();
+        read.run(new EventLog.Sink() {
+            @Override public void onEvent(long t, boolean c, int id) {}
+            @Override public void onEvent(long t, boolean c, int id, int flaps) { out.add(new long[]{t, c ? 1 : 0, id, flaps}); }
+        });
+        return out;
+    }
+
+    @Test
+    public void recordsRoundTripWithFlapsClampedToU16() throws IOException {
+        File log = tmp.newFile("events.bin");
+        write(log, T0, new long[]{T0, 1, 3, 0}, new long[]{T0 + 1, 0, 0, 70_000});
+
+        assertEquals(T0, EventLog.created(log));
+        assertEquals(EventLog.HEADER_SIZE + 2 * EventLog.RECORD_SIZE, log.length());
+        List<long[]> r = collect(s -> EventLog.read(log, s));
+        assertArrayEquals(new long[]{T0,     1, 3, 0},                    r.get(0));
+        assertArrayEquals(new long[]{T0 + 1, 0, 0, FlapFilter.MAX_FLAPS}, r.get(1));
+    }
+
+    @Test
+    public void cursorReadsOnlyWhatWasAppended() throws IOException {
+        File log = tmp.newFile("events.bin");
+        EventLog.Cursor cur = new EventLog.Cursor();
+        assertEquals(0, EventLog.readTail(log, cur, (t, c, id) -> {}));     // no header yet
+
+        write(log, T0, new long[]{T0, 1, 1, 0});
+        assertEquals(1, collect(s -> EventLog.readTail(log, cur, s)).size());
+        assertEquals(0, EventLog.readTail(log, cur, (t, c, id) -> {}));
+
+        write(log, 0, new long[]{T0 + 1, 0, 0, 0}, new long[]{T0 + 2, 1, 2, 0});
+        try (FileOutputStream out = new FileOutputStream(log, true)) { out.write(new byte[7]); }   // torn tail
+        List<long[]> r = collect(s -> EventLog.readTail(log, cur, s));
+        assertEquals(2, r.size());
+        assertEquals(T0 + 2, r.get(1)[0]);
+        assertEquals(EventLog.HEADER_SIZE + 3 * EventLog.RECORD_SIZE, cur.offset());
+    }
+
+    @Test
+    public void truncationOrANewHeaderMakesTheCursorStale() throws IOException {
+        File log = tmp.newFile("events.bin");
+        write(log, T0, new long[]{T0, 1, 1, 0}, new long[]{T0 + 1, 0, 0, 0});
+        EventLog.Cursor cur = new EventLog.Cursor();
+        EventLog.readTail(log, cur, (t, c, id) -> {});
+
+        try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) { raf.setLength(EventLog.HEADER_SIZE + EventLog.RECORD_SIZE); }
+        assertEquals(EventLog.STALE, EventLog.readTail(log, cur, (t, c, id) -> {}));
+        assertEquals(0, cur.offset());
+
+        EventLog.readTail(log, cur, (t, c, id) -> {});
+        write(log, T0 + 86_400_000L, new long[]{T0 + 86_400_000L, 1, 1, 0}, new long[]{T0 + 86_400_001L, 0, 0, 0});   // rotated
+        assertEquals(EventLog.STALE, EventLog.readTail(log, cur, (t, c, id) -> {}));
+        assertEquals(2, EventLog.readTail(log, cur, (t, c, id) -> {}));
+    }
+
+    @Test
+    public void garbledRecordsAreSkippedAndCounted() throws IOException {
+        File log = tmp.newFile("events.bin");
+        write(log, T0,
+                new long[]{T0,     1, 1, 0},
+                new long[]{0,      1, 1, 0},         // timestamp before 2000
+                new long[]{T0 + 2, 0, -5, 0},        // negative ssid id
+                new long[]{T0 + 3, 0, 0, 0});
+        try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) {
+            raf.seek(EventLog.HEADER_SIZE + 3 * EventLog.RECORD_SIZE + 8);
+            raf.write(7);                            // state neither 0 nor 1
+        }
+        EventLog.Cursor cur = new EventLog.Cursor();
+        List<long[]> r = collect(s -> EventLog.read(log, cur, s));
+        assertEquals(1, r.size());
+        assertEquals(3, cur.malformed());
+    }
+
+    @Test
+    public void foreignFilesAreRejected() throws IOException {
+        File f = tmp.newFile("notes.txt");
+        try (FileOutputStream out = new FileOutputStream(f)) { out.write("not an event log at all".getBytes()); }
+        try {
+            EventLog.read(f, (t, c, id) -> {});
+            fail("read a foreign file");
+        } catch (IOException expected) {}
+    }
+
+    @Test
+    public void rangeStartsWithTheStateAtItsStart() throws IOException {
+        File log = tmp.newFile("events.bin");
+        long h = 3_600_000L;
+        write(log, T0, new long[]{T0, 1, 1, 0}, new long[]{T0 + h, 0, 0, 0},
+                new long[]{T0 + 2 * h, 1, 2, 0}, new long[]{T0 + 3 * h, 0, 0, 0});
+        EventIndex.rebuild(log);
+
+        List<long[]> r = collect(s -> EventLog.readRange(log, T0 + h + 1, T0 + 3 * h, s));
+        assertEquals(2, r.size());
+        assertEquals(T0 + h,     r.get(0)[0]);
+        assertEquals(T0 + 2 * h, r.get(1)[0]);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.overlaywifi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventStoreTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private EventStore store;
+
+    private EventSeries history() throws InterruptedException {
+        store.awaitIdle();
+        EventSeries[] got = new EventSeries[1];
+        EventStore.Subscription s = store.subscribe((events, full) -> got[0] = events, Runnable::run);
+        store.awaitIdle();
+        s.close();
+        return got[0];
+    }
+
+    /** The single delivery of a range read. */
+    private EventSeries read(long from, long to) throws InterruptedException {
+        EventSeries[] got = new EventSeries[1];
+        store.read(from, to, (events, full) -> got[0] = events, Runnable::run);
+        store.awaitIdle();
+        return got[0];
+    }
+
+    private void open() {
+        File dir = tmp.getRoot();
+        store = EventStore.shared(new File(dir, "events.bin"),
+                new EventArchive(new File(dir, "archive"), EventArchive.Policy.DEFAULT),
+                SsidDictionary.shared(new File(dir, "ssids.txt")));
+    }
+
+    @Test
+    public void appendsDropOnlyExactDuplicatesAndNameNoNetworkWhenDown() throws InterruptedException {
+        open();
+        long t = System.currentTimeMillis();
+        store.append(t,         true,  "home");
+        store.append(t,         true,  "home");             // also read from disk: dropped
+        store.append(t,         true,  "work");             // same instant, other network: kept
+        store.append(t + 1_000, false, "work");
+
+        EventSeries h = history();
+        assertEquals(3, h.size());
+        assertTrue(h.ssid(0) != h.ssid(1));
+        assertEquals(SsidDictionary.NONE, h.ssid(2));
+    }
+
+    @Test
+    public void rangeReadSpansRotatedSegmentsInTimeOrder() throws IOException, InterruptedException {
+        File dir = tmp.getRoot();
+        EventJournal j = new EventJournal(new File(dir, "events.bin"), new File(dir, "ssids.txt"), null,
+                new EventArchive(new File(dir, "archive"), EventArchive.Policy.DEFAULT), EventJournal.FlushPolicy.immediate(false));
+        long t0 = System.currentTimeMillis() - 3 * 86_400_000L;     // inside the raw window
+        for (int i = 0; i < 300; i++) j.append(t0 + i * 600_000L, i % 2 == 0, "home", 0);   // 50 h: rotates daily
+        j.close();
+        open();
+
+        EventSeries all = read(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(300, all.size());
+        for (int i = 0; i < all.size(); i++) assertEquals(t0 + i * 600_000L, all.time(i));
+
+        EventSeries window = read(t0 + 60_000_000L, t0 + 120_000_000L);
+        assertEquals(t0 + 59_400_000L, window.first());            // state at the window start
+        assertEquals(t0 + 119_400_000L, window.last());
+        assertEquals(101, window.size());
+    }
+
+    @Test
+    public void eventsPastTheHistoryWindowAreTrimmed() throws InterruptedException {
+        open();
+        long now = System.currentTimeMillis(), cutoff = now - EventStore.HISTORY_MS;
+        store.append(cutoff - 3 * 86_400_000L, true,  "home");
+        store.append(cutoff - 2 * 86_400_000L, false, "home");
+        store.append(now - 1_000,              true,  "home");
+
+        EventSeries h = history();
+        assertEquals(2, h.size());                                // the outage that spans the cutoff stays
+        assertEquals(cutoff - 2 * 86_400_000L, h.first());
+        assertFalse(h.connected(h.indexAt(cutoff)));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.overlaywifi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FlapFilterTest {
+
+    private final FlapFilter f = new FlapFilter(new FlapFilter.Policy(3_000, 2_000));
+
+    @Test
+    public void aStateCountsOnceItHasHeldForItsDirection() {
+        f.reset(0, false);
+        assertEquals(3_000 + 1_000, f.offer(1_000, true));       // up needs 3 s
+        assertFalse(f.poll(3_999));
+        assertTrue(f.poll(4_000));
+        assertTrue(f.state());
+        assertEquals(1_000, f.since());                           // when it began, not when it was confirmed
+        assertEquals(0, f.flaps());
+
+        assertEquals(10_000 + 2_000, f.offer(10_000, false));    // down needs 2 s
+        assertTrue(f.poll(12_000));
+        assertFalse(f.state());
+    }
+
+    @Test
+    public void reversionsAreSuppressedAndHandedOverWithTheNextCommit() {
+        f.reset(0, true);
+        f.offer(1_000, false);
+        assertEquals(-1, f.offer(1_500, true));                   // back before the hold time: nothing pending
+        assertFalse(f.poll(10_000));
+        f.offer(2_000, false);
+        f.offer(2_100, true);
+        f.offer(2_200, false);
+        assertEquals(2_200 + 2_000, f.offer(2_300, false));      // a repeated report changes nothing
+        assertTrue(f.poll(4_200));
+        assertEquals(2_200, f.since());
+        assertEquals(4, f.flaps());                               // five raw transitions, one committed
+    }
+
+    @Test
+    public void noPolicyCommitsEveryChange() {
+        FlapFilter none = new FlapFilter(FlapFilter.Policy.NONE);
+        none.reset(0, false);
+        assertEquals(5, none.offer(5, true));
+        assertTrue(none.poll(5));
+        assertTrue(none.state());
+    }
+
+    @Test
+    public void pollWithMaxValueForcesAPendingCommit() {
+        f.reset(0, true);
+        f.offer(1_000, false);
+        assertTrue(f.poll(Long.MAX_VALUE));
+        assertFalse(f.state());
+        assertFalse(f.poll(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void discardDropsThePendingStateAndReturnsItsReports() {
+        f.reset(0, true);
+        f.offer(1_000, false);
+        f.offer(1_500, true);
+        f.offer(2_000, false);
+        assertEquals(3, f.discard());
+        assertTrue(f.state());                                    // the committed state stays
+        assertEquals(0, f.since());
+        assertFalse(f.poll(Long.MAX_VALUE));
+        assertEquals(0, f.discard());
+    }
+}
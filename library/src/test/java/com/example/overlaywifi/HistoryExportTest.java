@@ -0,0 +1,146 @@
+package com.example.overlaywifi;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HistoryExportTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final long T0   = 1_750_000_000_000L;
+    private static final long HOUR = 3_600_000L;
+
+    private HistoryExport export;
+    private File          dir;
+    private int           cafe;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = tmp.getRoot();
+        SsidDictionary ssids  = SsidDictionary.shared(new File(dir, "ssids.txt"));
+        SsidDictionary bssids = SsidDictionary.shared(new File(dir, "bssids.txt"));
+        cafe = ssids.intern("Café, \"free\"");
+        int ap   = bssids.intern("aa:bb:cc:dd:ee:ff");
+
+        File log = new File(dir, "events.bin");
+        EventLogTest.write(log, T0, new long[]{T0, 1, cafe, 0}, new long[]{T0 + 5_000, 0, 0, 2});
+        RssiStore rssi = new RssiStore(new File(dir, "rssi"));
+        rssi.append(T0 + 1_000, -61, 10_000, cafe, ap);
+        rssi.append(T0 + 2_000, -63, 10_000, 0, 0);
+        rssi.close();
+
+        export = new HistoryExport(archive(), Collections.singletonList(log), new File(dir, "rssi"), ssids, bssids);
+    }
+
+    private EventArchive archive() {
+        return new EventArchive(new File(dir, "archive"), EventArchive.Policy.DEFAULT);
+    }
+
+    private String text(HistoryExport.Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(export.write(format, out, (done, total) -> {}));
+        return out.toString(StandardCharsets.UTF_8.name());
+    }
+
+    @Test
+    public void csvQuotesNamesThatNeedIt() throws IOException {
+        assertEquals("type,timestamp,connected,ssid,bssid,flaps,rssi,interval_ms\n"
+                + "event," + T0 + ",1,\"Café, \"\"free\"\"\",,0,,\n"
+                + "event," + (T0 + 5_000) + ",0,,,2,,\n"
+                + "rssi," + (T0 + 1_000) + ",,\"Café, \"\"free\"\"\",aa:bb:cc:dd:ee:ff,,-61,10000\n"
+                + "rssi," + (T0 + 2_000) + ",,,,,-63,10000\n",
+                text(HistoryExport.Format.CSV));
+    }
+
+    @Test
+    public void jsonLinesOmitWhatIsAbsent() throws IOException {
+        String[] lines = text(HistoryExport.Format.JSONL).split("\n");
+        assertArrayEquals(new String[]{
+                "{\"type\":\"event\",\"t\":" + T0 + ",\"connected\":true,\"ssid\":\"Café, \\\"free\\\"\"}",
+                "{\"type\":\"event\",\"t\":" + (T0 + 5_000) + ",\"connected\":false,\"flaps\":2}",
+                "{\"type\":\"rssi\",\"t\":" + (T0 + 1_000) + ",\"rssi\":-61,\"interval\":10000,\"ssid\":\"Café, \\\"free\\\"\",\"bssid\":\"aa:bb:cc:dd:ee:ff\"}",
+                "{\"type\":\"rssi\",\"t\":" + (T0 + 2_000) + ",\"rssi\":-63,\"interval\":10000}",
+        }, lines);
+    }
+
+    @Test
+    public void historyPastTheRawWindowIsExportedAsHourlyRows() throws IOException {
+        long old = T0 - 40 * 24 * HOUR - Math.floorMod(T0, HOUR);
+        File archiveDir = new File(dir, "archive");
+        assertTrue(archiveDir.mkdirs());
+        EventArchiveTest.segment(archiveDir, old, new long[]{old, 1, cafe}, new long[]{old + HOUR / 2, 0, 0});
+        assertEquals(1, archive().compact(T0, old + 2 * HOUR));
+        assertTrue(archive().segments(Long.MIN_VALUE, Long.MAX_VALUE).isEmpty());
+
+        String[] csv = text(HistoryExport.Format.CSV).split("\n");
+        assertEquals("hourly," + old + ",1,\"Café, \"\"free\"\"\",,,,", csv[1]);
+        assertEquals("hourly," + (old + HOUR / 2) + ",0,,,,,", csv[2]);
+        assertEquals("event," + T0 + ",1,\"Café, \"\"free\"\"\",,0,,", csv[3]);
+
+        String[] json = text(HistoryExport.Format.JSONL).split("\n");
+        assertEquals("{\"type\":\"hourly\",\"t\":" + (old + HOUR / 2) + ",\"connected\":false}", json[1]);
+        assertTrue(json[2].startsWith("{\"type\":\"event\","));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(export.write(HistoryExport.Format.COLUMNAR, out, (done, total) -> {}));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        in.readInt();
+        in.readShort();
+        List<Integer> kinds = new ArrayList<>();
+        while (in.available() > 0) {
+            kinds.add(in.readUnsignedByte());
+            in.readInt();
+            in.skipBytes(in.readInt());
+        }
+        assertEquals(Arrays.asList(1, 4, 5, 2, 3), kinds);
+    }
+
+    @Test
+    public void columnarHasNameBlocksThenEventsThenSamples() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(export.write(HistoryExport.Format.COLUMNAR, out, (done, total) -> {}));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(0x57435831, in.readInt());                   // "WCX1"
+        in.readShort();
+        List<int[]> blocks = new ArrayList<>();                  // {kind, rows}
+        while (in.available() > 0) {
+            int kind = in.readUnsignedByte(), rows = in.readInt(), len = in.readInt();
+            in.skipBytes(len);
+            blocks.add(new int[]{kind, rows});
+        }
+        assertEquals(4, blocks.size());
+        assertArrayEquals(new int[]{1, 1}, blocks.get(0));
+        assertArrayEquals(new int[]{4, 1}, blocks.get(1));
+        assertArrayEquals(new int[]{2, 2}, blocks.get(2));
+        assertArrayEquals(new int[]{3, 2}, blocks.get(3));
+    }
+
+    @Test
+    public void progressEndsAtTheTotalAndCancelStopsTheExport() throws IOException {
+        long[] last = new long[2];
+        assertTrue(export.write(HistoryExport.Format.CSV, new ByteArrayOutputStream(), (done, total) -> { last[0] = done; last[1] = total; }));
+        assertTrue(last[1] > 0);
+        assertEquals(last[1], last[0]);
+
+        export.cancel();                                          // e.g. from the dialog, while the worker runs
+        assertFalse(export.write(HistoryExport.Format.CSV, new ByteArrayOutputStream(), (done, total) -> {}));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.overlaywifi;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RssiRingTest {
+
+    /** Sample k carries t = k and values derived from it, so a torn read shows up as a mismatch. */
+    private static int rssiOf(long t)     { return -(int) (1 + t % 100); }
+    private static int intervalOf(long t) { return (int) (t * 7); }
+
+    @Test
+    public void copyReturnsRangeOldestFirst() {
+        RssiRing ring = new RssiRing(10);
+        for (long t = 0; t < 25; t++) ring.add(t, rssiOf(t), intervalOf(t), 3);
+        assertEquals(10, ring.size());
+
+        long[] t = new long[32]; byte[] r = new byte[32]; int[] iv = new int[32];
+        int n = ring.copy(17, 21, t, r, iv);
+        assertEquals(4, n);
+        for (int k = 0; k < n; k++) {
+            assertEquals(17 + k, t[k]);
+            assertEquals(rssiOf(t[k]), r[k]);
+            assertEquals(intervalOf(t[k]), iv[k]);
+        }
+        // older samples have left the window
+        assertEquals(10, ring.copy(Long.MIN_VALUE, Long.MAX_VALUE, t, r));
+        assertEquals(15, t[0]);
+    }
+
+    @Test
+    public void rssiIsClampedToAByte() {
+        RssiRing ring = new RssiRing(4);
+        ring.add(1, -300, 0, 0);
+        ring.add(2, 300, 0, 0);
+        RssiRing.View v = ring.view();
+        assertEquals(Byte.MIN_VALUE, v.rssi(0));
+        assertEquals(Byte.MAX_VALUE, v.rssi(1));
+    }
+
+    /** One writer wrapping a small ring as fast as it can; readers must never accept a torn or overwritten sample. */
+    @Test
+    public void concurrentReadersNeverSeeTornSamples() throws InterruptedException {
+        RssiRing ring = new RssiRing(16);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread writer = new Thread(() -> {
+            for (long t = 0; !stop.get(); t++) ring.add(t, rssiOf(t), intervalOf(t), (int) t);
+        });
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            boolean useView = r == 0;
+            readers[r] = new Thread(() -> {
+                long[] t = new long[16]; byte[] rs = new byte[16]; int[] iv = new int[16];
+                RssiRing.View view = ring.view();
+                while (!stop.get() && failure.get() == null) {
+                    if (useView) {
+                        view.refresh();
+                        long[] vt = new long[view.size()]; int[] vr = new int[vt.length], vi = new int[vt.length], vs = new int[vt.length];
+                        for (int k = 0; k < vt.length; k++) {
+                            vt[k] = view.time(k); vr[k] = view.rssi(k); vi[k] = view.interval(k); vs[k] = view.ssid(k);
+                        }
+                        if (!view.isValid()) continue;
+                        for (int k = 0; k < vt.length; k++) {
+                            if (vr[k] != rssiOf(vt[k]) || vi[k] != intervalOf(vt[k]) || vs[k] != (int) vt[k]
+                                    || (k > 0 && vt[k] != vt[k - 1] + 1)) {
+                                failure.compareAndSet(null, "view: torn sample at t=" + vt[k]);
+                            }
+                        }
+                    } else {
+                        int n = ring.copy(Long.MIN_VALUE, Long.MAX_VALUE, t, rs, iv);
+                        for (int k = 0; k < n; k++) {
+                            if (rs[k] != rssiOf(t[k]) || iv[k] != intervalOf(t[k]) || (k > 0 && t[k] != t[k - 1] + 1)) {
+                                failure.compareAndSet(null, "copy: torn sample at t=" + t[k]);
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        writer.start();
+        for (Thread r : readers) r.start();
+        Thread.sleep(1_000);
+        stop.set(true);
+        writer.join();
+        for (Thread r : readers) r.join();
+
+        assertNull(failure.get(), failure.get());
+        assertTrue(ring.size() == 16);
+    }
+}
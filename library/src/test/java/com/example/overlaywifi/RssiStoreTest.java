@@ -0,0 +1,144 @@
+package com.example.overlaywifi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class RssiStoreTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final long T0 = 1_750_000_000_000L;
+
+    /** {t, rssi, interval, ssid, bssid} per sample. */
+    private static List<long[]> read(File seg) throws IOException {
+        List<long[]> out = new ArrayList<>();
+        RssiStore.read(seg, Long.MIN_VALUE, sink(out));
+        return out;
+    }
+
+    private static RssiStore.Sink sink(List<long[]> out) {
+        return new RssiStore.Sink() {
+            @Override public void onSample(long t, int rssi, int intervalMs) {}
+            @Override public void onSample(long t, int rssi, int intervalMs, int ssidId, int bssidId) {
+                out.add(new long[]{t, rssi, intervalMs, ssidId, bssidId});
+            }
+        };
+    }
+
+    @Test
+    public void backwardClockJumpStartsALaterNamedSegment() throws IOException {
+        File dir = tmp.getRoot();
+        RssiStore s = new RssiStore(dir);
+        s.append(T0,          -50, 10_000, 1, 2);
+        s.append(T0 + 10_000, -51, 10_000, 1, 2);
+        s.append(T0,          -52, 10_000, 1, 2);          // clock set back onto the first segment's base
+        s.close();
+
+        File[] segs = RssiStore.segments(dir);
+        assertEquals(2, segs.length);
+        assertEquals(2, read(segs[0]).size());              // no second header appended into it
+        assertArrayEquals(new long[]{T0, -52, 10_000, 1, 2}, read(segs[1]).get(0));
+
+        // the post-jump segment stays the append target after a restart
+        RssiStore again = new RssiStore(dir);
+        List<long[]> restored = new ArrayList<>();
+        again.restore(Long.MIN_VALUE, sink(restored));
+        again.append(T0 + 5_000, -53, 10_000, 1, 2);
+        again.close();
+        assertEquals(2, RssiStore.segments(dir).length);
+        assertEquals(2, read(RssiStore.segments(dir)[1]).size());
+        assertEquals(-52, restored.get(restored.size() - 1)[1]);
+    }
+
+    @Test
+    public void samplesRoundTripThroughTheVarints() throws IOException {
+        File dir = tmp.getRoot();
+        long[][] in = {
+                {T0,                  -40,      10_000, 1, 1},
+                {T0 + 1,              -127,     0,      1, 1},    // largest rssi swing, 1 ms apart
+                {T0 + 1 + 7 * 3_600_000L, 0,   900_000, 2, 7},   // four-byte Δt, network change
+                {T0 + 2 + 7 * 3_600_000L, -90, 100,     0, 0},   // back to no network
+        };
+        RssiStore s = new RssiStore(dir);
+        for (long[] r : in) s.append(r[0], (int) r[1], (int) r[2], (int) r[3], (int) r[4]);
+        s.close();
+
+        assertEquals(1, RssiStore.segments(dir).length);
+        List<long[]> out = read(RssiStore.segments(dir)[0]);
+        assertEquals(in.length, out.size());
+        for (int i = 0; i < in.length; i++) assertArrayEquals(in[i], out.get(i));
+    }
+
+    @Test
+    public void restoreTrimsATornRecordAndAppendsInPlace() throws IOException {
+        File dir = tmp.getRoot();
+        RssiStore s = new RssiStore(dir);
+        s.append(T0,          -50, 10_000, 1, 1);
+        s.append(T0 + 10_000, -55, 10_000, 1, 1);
+        s.close();
+        File seg = RssiStore.segments(dir)[0];
+        long whole = seg.length();
+        try (FileOutputStream out = new FileOutputStream(seg, true)) { out.write(0x80); }   // varint cut short
+
+        s = new RssiStore(dir);
+        assertEquals(2, s.restore(Long.MIN_VALUE, sink(new ArrayList<>())));
+        assertEquals(whole, seg.length());
+        s.append(T0 + 20_000, -60, 10_000, 1, 1);
+        s.close();
+        List<long[]> r = read(seg);
+        assertEquals(3, r.size());
+        assertArrayEquals(new long[]{T0 + 20_000, -60, 10_000, 1, 1}, r.get(2));
+    }
+
+    /** A version-1 segment: magic "RSI1", base, then (Δt, zig-zag Δrssi, interval/100) varints, no network ids. */
+    private static void writeV1(File f, long base, long[]... samples) throws IOException {
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        b.write(ByteBuffer.allocate(12).putInt(0x52534931).putLong(base).array(), 0, 12);
+        long t = base; int rssi = 0;
+        for (long[] s : samples) {
+            varint(b, s[0] - t);
+            varint(b, (s[1] - rssi) << 1 ^ (s[1] - rssi) >> 63);
+            varint(b, s[2] / 100);
+            t = s[0]; rssi = (int) s[1];
+        }
+        try (FileOutputStream out = new FileOutputStream(f)) { b.writeTo(out); }
+    }
+
+    private static void varint(ByteArrayOutputStream b, long v) {
+        while ((v & ~0x7FL) != 0) { b.write((int) (v & 0x7F) | 0x80); v >>>= 7; }
+        b.write((int) v);
+    }
+
+    @Test
+    public void versionOneSegmentsAreReadButNeverAppendedTo() throws IOException {
+        File dir = tmp.getRoot();
+        File v1 = new File(dir, "seg-" + T0 + ".rsi");
+        writeV1(v1, T0, new long[]{T0, -61, 10_000}, new long[]{T0 + 10_000, -58, 20_000});
+        long length = v1.length();
+
+        List<long[]> r = read(v1);
+        assertEquals(2, r.size());
+        assertArrayEquals(new long[]{T0 + 10_000, -58, 20_000, 0, 0}, r.get(1));
+
+        RssiStore s = new RssiStore(dir);
+        assertEquals(2, s.restore(Long.MIN_VALUE, sink(new ArrayList<>())));
+        s.append(T0 + 30_000, -57, 10_000, 3, 4);
+        s.close();
+        assertEquals(length, v1.length());
+        File[] segs = RssiStore.segments(dir);
+        assertEquals(2, segs.length);
+        assertArrayEquals(new long[]{T0 + 30_000, -57, 10_000, 3, 4}, read(segs[1]).get(0));
+    }
+}
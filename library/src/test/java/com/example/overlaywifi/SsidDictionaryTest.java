@@ -0,0 +1,55 @@
+package com.example.overlaywifi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SsidDictionaryTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void idsAreStableAcrossReloads() throws IOException {
+        File f = new File(tmp.getRoot(), "ssids.txt");
+        SsidDictionary d = SsidDictionary.shared(f);
+        assertSame(d, SsidDictionary.shared(new File(tmp.getRoot(), "ssids.txt")));
+        assertEquals(1, d.intern("home"));
+        assertEquals(2, d.intern("Kavárna ☕"));
+        assertEquals(1, d.intern("home"));
+        assertEquals(3, d.intern("two\nlines"));                  // one name per line in the file
+
+        SsidDictionary again = SsidDictionary.load(f);
+        assertEquals(3, again.size());
+        assertEquals("Kavárna ☕", again.name(2));
+        assertEquals("two lines", again.name(3));
+    }
+
+    @Test
+    public void noNetworkIsNeverStored() throws IOException {
+        SsidDictionary d = SsidDictionary.shared(new File(tmp.getRoot(), "ssids.txt"));
+        assertEquals(SsidDictionary.NONE, d.intern((String) null));
+        assertEquals(SsidDictionary.NONE, d.intern(""));
+        assertEquals(SsidDictionary.NONE, d.intern(SsidDictionary.NONE_NAME));
+        assertEquals(0, d.size());
+        assertEquals(SsidDictionary.NONE_NAME, d.name(SsidDictionary.NONE));
+        assertEquals(SsidDictionary.NONE_NAME, d.name(42));
+    }
+
+    @Test
+    public void byteInterningMatchesStringInterning() throws IOException {
+        SsidDictionary d = SsidDictionary.shared(new File(tmp.getRoot(), "ssids.txt"));
+        byte[] line = "1750000000000,1,Kavárna\n".getBytes(StandardCharsets.UTF_8);
+        int off = 16, len = line.length - off - 1;
+        int id = d.intern(line, off, len);
+        assertEquals(id, d.intern(line, off, len));               // repeat of the previous name
+        assertEquals(id, d.intern("Kavárna"));
+        assertEquals(id + 1, d.intern("jiná".getBytes(StandardCharsets.UTF_8), 0, 5));
+    }
+}